@@ -0,0 +1,11 @@
+/**
+ * A BenchmarkCase is a single operation measured by the BenchmarkRunner.
+ */
+public interface BenchmarkCase {
+    /**
+     * Runs the operation once. The result is consumed by the runner so the JIT can't remove the operation.
+     *
+     * @return a value computed by the operation
+     */
+    double invoke();
+}
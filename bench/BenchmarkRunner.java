@@ -0,0 +1,122 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.regex.Pattern;
+/**
+ * The BenchmarkRunner class measures BenchmarkCases the way a micro-benchmark harness does: a few warmup
+ * iterations to let the JIT compile the code, then measurement iterations of a fixed duration. For every case it
+ * reports the average time per operation with its deviation between iterations, and the bytes allocated per
+ * operation, taken from the allocation counter of the running thread.
+ */
+public class BenchmarkRunner {
+    private static final long NANOS_PER_MILLI = 1000000L;
+    // The clock is read after a batch of operations, which grows until a batch takes at least this long
+    private static final long MIN_BATCH_NANOS = 10000L;
+    private static final int MAX_BATCH = 1 << 16;
+    private int warmupIterations;
+    private int measurementIterations;
+    private long iterationNanos;
+    // Only the cases whose name matches the filter are run
+    private Pattern filter;
+    // Collects the results of the operations so they are not optimized away
+    private double sink;
+
+    /**
+     * Constructor for the BenchmarkRunner class.
+     *
+     * @param warmupIterations      the amount of iterations run before measuring
+     * @param measurementIterations the amount of measured iterations
+     * @param iterationMillis       the duration of a single iteration in milliseconds
+     * @param filter                a regular expression, only the cases whose name contains a match are run
+     */
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis, String filter) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * NANOS_PER_MILLI;
+        this.filter = Pattern.compile(filter);
+    }
+
+    /**
+     * Measures the given case and prints a line with its results, if its name matches the filter.
+     *
+     * @param name          the name of the case
+     * @param benchmarkCase the operation to measure
+     */
+    public void run(String name, BenchmarkCase benchmarkCase) {
+        if (!filter.matcher(name).find()) {
+            return;
+        }
+        for (int i = 0; i < warmupIterations; i++) {
+            iterate(benchmarkCase, new long[2]);
+        }
+        double[] nanosPerOperation = new double[measurementIterations];
+        long totalOperations = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < measurementIterations; i++) {
+            long[] result = new long[2];
+            long nanos = iterate(benchmarkCase, result);
+            nanosPerOperation[i] = (double) nanos / result[0];
+            totalOperations += result[0];
+            totalBytes += result[1];
+        }
+        double mean = 0;
+        for (double value : nanosPerOperation) {
+            mean += value / measurementIterations;
+        }
+        double variance = 0;
+        for (double value : nanosPerOperation) {
+            variance += (value - mean) * (value - mean) / measurementIterations;
+        }
+        String bytes = totalBytes < 0 ? "n/a" : String.format("%.1f", (double) totalBytes / totalOperations);
+        System.out.println(String.format("%-50s %14.1f ns/op  +- %8.1f  %10s B/op", name, mean,
+                Math.sqrt(variance), bytes));
+    }
+
+    /**
+     * Returns the collected results of the operations, so a caller can print it and keep it alive.
+     *
+     * @return the sum of the results of the operations
+     */
+    public double getSink() {
+        return sink;
+    }
+
+    // Runs the case for the duration of an iteration, stores the operations and allocated bytes in result
+    private long iterate(BenchmarkCase benchmarkCase, long[] result) {
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long elapsed;
+        long operations = 0;
+        int batch = 1;
+        double localSink = 0;
+        do {
+            // cheap operations run in bigger batches, so they are not dominated by reading the clock
+            long batchStart = System.nanoTime();
+            for (int i = 0; i < batch; i++) {
+                localSink += benchmarkCase.invoke();
+            }
+            operations += batch;
+            long now = System.nanoTime();
+            if (now - batchStart < MIN_BATCH_NANOS && batch < MAX_BATCH) {
+                batch *= 2;
+            }
+            elapsed = now - start;
+        } while (elapsed < iterationNanos);
+        long bytesAfter = allocatedBytes();
+        sink += localSink;
+        result[0] = operations;
+        result[1] = bytesBefore < 0 ? -1 : bytesAfter - bytesBefore;
+        return elapsed;
+    }
+
+    // The bytes allocated so far by the current thread, or -1 if the JVM doesn't count them
+    private static long allocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,253 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+/**
+ * The HotPathBenchmarks class measures the geometry and motion code that runs on every frame: the line
+ * intersection tests, the point and velocity math, a step of the balls at growing amounts of balls, the drawing of
+ * the balls, the marking of the intersection points at growing amounts of lines, and the generation of a big scene.
+ * The inputs are generated from a fixed seed, so two runs measure the same work.
+ */
+public class HotPathBenchmarks {
+    private static final long SEED = 42;
+    // The amount of inputs the small operations cycle through, a power of two so the index is a mask
+    private static final int INPUTS = 1024;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASUREMENT_ITERATIONS = 5;
+    private static final long DEFAULT_ITERATION_MILLIS = 500;
+    private static final int[] BALL_COUNTS = {10, 1000, 100000};
+    private static final int SUB_STEPS = 4;
+    private static final int[] RENDER_BALL_COUNTS = {10, 1000};
+    private static final int PAINTED_BALLS = 10000;
+    private static final int PALETTE_BITS = 2;
+    private static final long SPRITE_CACHE_BYTES = 64L * 1024 * 1024;
+    private static final int[] LINE_COUNTS = {10, 100, 1000};
+    private static final int GENERATED_BALLS = 1000000;
+    private static final int RENDER_FRAMES = 4096;
+    // The percentage of the many small frames that hold a moving ball, the others stay still
+    private static final int MOVING_FRAMES_PERCENT = 1;
+    // The idle screen has frames of this many balls, the balls of all its frames but the first are asleep
+    private static final int IDLE_FRAME_BALLS = 1000;
+    private SceneGenerator sceneGenerator = new SceneGenerator(SEED);
+    private int next;
+
+    /**
+     * The main method that runs the benchmarks.
+     *
+     * @param args The command line arguments: an optional regular expression that selects the benchmarks by name,
+     *             and an optional duration of an iteration in milliseconds
+     */
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+        long iterationMillis = DEFAULT_ITERATION_MILLIS;
+        try {
+            if (args.length > 1) {
+                iterationMillis = Long.parseLong(args[1]);
+            }
+        } catch (NumberFormatException notNumericError) {
+            System.out.println("Usage: HotPathBenchmarks [filter] [iterationMillis]");
+            return;
+        }
+        BenchmarkRunner runner = new BenchmarkRunner(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, iterationMillis,
+                filter);
+        new HotPathBenchmarks().runAll(runner);
+        // printing the sink keeps the results of the operations alive
+        System.out.println("sink: " + runner.getSink());
+    }
+
+    /**
+     * Runs all the benchmarks on the given runner.
+     *
+     * @param runner the runner that measures the benchmarks
+     */
+    public void runAll(BenchmarkRunner runner) {
+        final Line[] lines = randomLines(INPUTS);
+        final Point[] points = randomPoints(INPUTS);
+        final Velocity[] velocities = randomVelocities(INPUTS);
+        runner.run("Line.intersectionWith", () -> {
+            Point intersection = lines[nextIndex()].intersectionWith(lines[nextIndex()]);
+            return intersection == null ? 0 : intersection.getX();
+        });
+        runner.run("Line.isIntersecting", () -> lines[nextIndex()].isIntersecting(lines[nextIndex()]) ? 1 : 0);
+        runner.run("Line.intersects", () -> {
+            Line other = lines[nextIndex()];
+            return lines[nextIndex()].intersects(other.getStart().getX(), other.getStart().getY(),
+                    other.getEnd().getX(), other.getEnd().getY()) ? 1 : 0;
+        });
+        runner.run("Line.intersectionWith engine=ORIENTATION", () -> {
+            Point intersection = lines[nextIndex()].intersectionWith(lines[nextIndex()],
+                    IntersectionEngine.ORIENTATION);
+            return intersection == null ? 0 : intersection.getX();
+        });
+        runner.run("Line.isIntersecting engine=ORIENTATION",
+                () -> lines[nextIndex()].isIntersecting(lines[nextIndex()], IntersectionEngine.ORIENTATION) ? 1 : 0);
+        runner.run("Line.inRange", () -> {
+            Line line = lines[nextIndex()];
+            return line.inRange(line, points[nextIndex()]) ? 1 : 0;
+        });
+        runner.run("Point.distance", () -> points[nextIndex()].distance(points[nextIndex()]));
+        runner.run("Point.distanceSq coordinates", () -> {
+            Point point = points[nextIndex()];
+            Point other = points[nextIndex()];
+            return Point.distanceSq(point.getX(), point.getY(), other.getX(), other.getY());
+        });
+        runner.run("Line.length", () -> lines[nextIndex()].length());
+        runner.run("Velocity.applyToPoint", () -> velocities[nextIndex()].applyToPoint(points[nextIndex()]).getX());
+        for (int balls : BALL_COUNTS) {
+            final Screen screen = ballsScreen(balls);
+            final ScreenMotionManager motionManager = new ScreenMotionManager(screen);
+            runner.run("ScreenMotionManager.moveOneStep balls=" + balls, () -> {
+                motionManager.moveOneStep();
+                return screen.getFrames()[0].getBallStore().getX(0);
+            });
+        }
+        final Screen continuousScreen = ballsScreen(BALL_COUNTS[BALL_COUNTS.length - 1]);
+        final ScreenMotionManager continuousManager = new ScreenMotionManager(continuousScreen);
+        continuousManager.setWallCollisionMode(WallCollisionMode.CONTINUOUS);
+        runner.run("ScreenMotionManager.moveOneStep mode=CONTINUOUS balls=" + BALL_COUNTS[BALL_COUNTS.length - 1],
+                () -> {
+                    continuousManager.moveOneStep();
+                    return continuousScreen.getFrames()[0].getBallStore().getX(0);
+                });
+        final int idleBalls = BALL_COUNTS[BALL_COUNTS.length - 1];
+        final Screen idleScreen = idleScreen(idleBalls);
+        final ScreenMotionManager idleManager = new ScreenMotionManager(idleScreen);
+        runner.run("ScreenMotionManager.moveOneStep idle balls=" + idleBalls, () -> {
+            idleManager.moveOneStep();
+            return idleScreen.getFrames()[0].getBallStore().getX(0);
+        });
+        final Screen publishedScreen = ballsScreen(idleBalls);
+        final ScreenMotionManager publishedManager = new ScreenMotionManager(publishedScreen);
+        final TripleBufferedScreen buffers = new TripleBufferedScreen(publishedScreen);
+        runner.run("TripleBufferedScreen.publish balls=" + idleBalls, () -> {
+            publishedManager.moveOneStep();
+            buffers.publish(publishedScreen, 0);
+            return buffers.acquire() ? buffers.getFront().getFrames()[0].getBallStore().getX(0) : 0;
+        });
+        final Screen subSteppedScreen = ballsScreen(BALL_COUNTS[1]);
+        final ScreenMotionManager subSteppedManager = new ScreenMotionManager(subSteppedScreen);
+        subSteppedManager.setSubSteps(SUB_STEPS);
+        runner.run("ScreenMotionManager.step subSteps=" + SUB_STEPS + " balls=" + BALL_COUNTS[1], () -> {
+            subSteppedManager.step(subSteppedManager.getTickSeconds());
+            return subSteppedScreen.getFrames()[0].getBallStore().getX(0);
+        });
+        for (int balls : RENDER_BALL_COUNTS) {
+            final Screen screen = ballsScreen(balls);
+            final ScreenMotionManager motionManager = new ScreenMotionManager(screen);
+            final BufferedScreenRenderer renderer = new BufferedScreenRenderer(screen);
+            runner.run("BufferedScreenRenderer.updateImage balls=" + balls, () -> {
+                motionManager.moveOneStep();
+                return renderer.updateImage(screen);
+            });
+        }
+        final Screen framesScreen = framesScreen(RENDER_FRAMES);
+        final ScreenMotionManager framesMotionManager = new ScreenMotionManager(framesScreen);
+        final BufferedScreenRenderer framesRenderer = new BufferedScreenRenderer(framesScreen);
+        runner.run("BufferedScreenRenderer.updateImage frames=" + RENDER_FRAMES, () -> {
+            framesMotionManager.moveOneStep();
+            return framesRenderer.updateImage(framesScreen);
+        });
+        final Frame paintedFrame = ballsScreen(PAINTED_BALLS).getFrames()[0];
+        BufferedImage image = new BufferedImage(Globals.BIG_WINDOW_WIDTH, Globals.BIG_WINDOW_HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        final ImageDrawSurface imageSurface = new ImageDrawSurface(image.createGraphics(), image.getWidth(),
+                image.getHeight());
+        BallPainter[] painters = {new DirectBallPainter(), new ColorBatchedBallPainter(),
+                new ColorBatchedBallPainter(PALETTE_BITS), new SpriteBallPainter(new SpriteCache(SPRITE_CACHE_BYTES))};
+        String[] painterNames = {"Direct", "ColorBatched", "ColorBatched palette=" + PALETTE_BITS, "Sprite"};
+        for (int p = 0; p < painters.length; p++) {
+            final BallPainter painter = painters[p];
+            runner.run("BallPainter.paint " + painterNames[p] + " balls=" + PAINTED_BALLS, () -> {
+                int[] order = painter.drawOrder(paintedFrame);
+                painter.paint(paintedFrame, order, 0, PAINTED_BALLS, imageSurface);
+                return order[0];
+            });
+        }
+        final AbstractArtDrawing artDrawing = new AbstractArtDrawing();
+        final NullDrawSurface drawSurface = new NullDrawSurface(Globals.ABSTRACT_ART_WIDTH,
+                Globals.ABSTRACT_ART_HEIGHT);
+        for (int count : LINE_COUNTS) {
+            final Line[] artLines = randomLines(count);
+            runner.run("AbstractArtDrawing.markIntersectionPoints lines=" + count, () -> {
+                artDrawing.markIntersectionPoints(artLines, drawSurface);
+                return drawSurface.getFilledShapes();
+            });
+        }
+        final int[] generatedSizes = randomSizes(GENERATED_BALLS);
+        runner.run("SceneGenerator.createFrame balls=" + GENERATED_BALLS, () -> sceneGenerator.createFrame(
+                generatedSizes, 0, Globals.BIG_WINDOW_WIDTH, 0, Globals.BIG_WINDOW_HEIGHT, null).getBallStore().size());
+    }
+
+    // The next index into the inputs, cycling through them
+    private int nextIndex() {
+        next = (next + 1) & (INPUTS - 1);
+        return next;
+    }
+
+    // Random lines with integer end points in the abstract art window, like AbstractArtDrawing generates
+    private Line[] randomLines(int amount) {
+        return sceneGenerator.createLines(amount, Globals.ABSTRACT_ART_WIDTH, Globals.ABSTRACT_ART_HEIGHT);
+    }
+
+    private Point[] randomPoints(int amount) {
+        Point[] points = new Point[amount];
+        for (int i = 0; i < amount; i++) {
+            points[i] = new Point(sceneGenerator.nextDouble() * Globals.ABSTRACT_ART_WIDTH,
+                    sceneGenerator.nextDouble() * Globals.ABSTRACT_ART_HEIGHT);
+        }
+        return points;
+    }
+
+    private Velocity[] randomVelocities(int amount) {
+        Velocity[] velocities = new Velocity[amount];
+        for (int i = 0; i < amount; i++) {
+            velocities[i] = Velocity.fromAngleAndSpeed(sceneGenerator.nextInt(360), sceneGenerator.nextInt(10) + 1);
+        }
+        return velocities;
+    }
+
+    // A screen with a single big window frame holding the given amount of balls
+    private Screen ballsScreen(int balls) {
+        Ball[] ballArr = new MultipleBouncingBallsAnimation(sceneGenerator).createBallArr(randomSizes(balls), 0,
+                Globals.BIG_WINDOW_WIDTH, 0, Globals.BIG_WINDOW_HEIGHT);
+        Frame[] frames = new Frame[Globals.SINGLE_FRAME];
+        frames[0] = new Frame(0, Globals.BIG_WINDOW_WIDTH, 0, Globals.BIG_WINDOW_HEIGHT, ballArr);
+        return new Screen(Globals.BIG_WINDOW_WIDTH, Globals.BIG_WINDOW_HEIGHT, "HotPathBenchmarks", frames);
+    }
+
+    // A screen with many small overlapping frames, a few of them with a moving ball
+    private Screen framesScreen(int amount) {
+        Frame[] frames = new Frame[amount];
+        for (int f = 0; f < amount; f++) {
+            int width = sceneGenerator.nextInt(Globals.BOUNCING_BALL_ANIMATION_RADIUS) + 12;
+            int height = sceneGenerator.nextInt(Globals.BOUNCING_BALL_ANIMATION_RADIUS) + 12;
+            int x = sceneGenerator.nextInt(Globals.BIG_WINDOW_WIDTH - width);
+            int y = sceneGenerator.nextInt(Globals.BIG_WINDOW_HEIGHT - height);
+            int[] sizes = sceneGenerator.nextInt(100) < MOVING_FRAMES_PERCENT ? new int[] {4} : new int[0];
+            frames[f] = sceneGenerator.createFrame(sizes, x, x + width, y, y + height,
+                    new Color(sceneGenerator.nextInt(1 << 24)));
+        }
+        return new Screen(Globals.BIG_WINDOW_WIDTH, Globals.BIG_WINDOW_HEIGHT, "HotPathBenchmarks", frames);
+    }
+
+    // A screen of frames that overlap, where only the balls of the first frame move
+    private Screen idleScreen(int balls) {
+        Frame[] frames = new Frame[balls / IDLE_FRAME_BALLS];
+        for (int f = 0; f < frames.length; f++) {
+            frames[f] = sceneGenerator.createFrame(randomSizes(IDLE_FRAME_BALLS), 0, Globals.BIG_WINDOW_WIDTH, 0,
+                    Globals.BIG_WINDOW_HEIGHT, null);
+            BallStore store = frames[f].getBallStore();
+            for (int i = 0; f > 0 && i < store.size(); i++) {
+                store.setVelocity(i, 0, 0);
+            }
+        }
+        return new Screen(Globals.BIG_WINDOW_WIDTH, Globals.BIG_WINDOW_HEIGHT, "HotPathBenchmarks", frames);
+    }
+
+    // Random sizes of balls, up to the radius of the bouncing ball animation
+    private int[] randomSizes(int balls) {
+        int[] sizes = new int[balls];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = sceneGenerator.nextInt(Globals.BOUNCING_BALL_ANIMATION_RADIUS) + 1;
+        }
+        return sizes;
+    }
+}
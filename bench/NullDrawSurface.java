@@ -0,0 +1,95 @@
+import biuoop.DrawSurface;
+import java.awt.Color;
+import java.awt.Image;
+import java.awt.Polygon;
+/**
+ * A DrawSurface that draws nothing and only counts the shapes it was asked to fill, used to benchmark drawing code
+ * without a window.
+ */
+public class NullDrawSurface implements DrawSurface {
+    private int width;
+    private int height;
+    private long filledShapes;
+
+    /**
+     * Constructor for the NullDrawSurface class.
+     *
+     * @param width  the width of the surface
+     * @param height the height of the surface
+     */
+    public NullDrawSurface(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the amount of shapes filled on the surface so far.
+     *
+     * @return the amount of filled shapes
+     */
+    public long getFilledShapes() {
+        return filledShapes;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void setColor(Color color) {
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        filledShapes++;
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        filledShapes++;
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int radius) {
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int radius) {
+        filledShapes++;
+    }
+
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+    }
+
+    @Override
+    public void drawPolygon(Polygon polygon) {
+    }
+
+    @Override
+    public void fillPolygon(Polygon polygon) {
+        filledShapes++;
+    }
+}
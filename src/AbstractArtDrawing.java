@@ -1,12 +1,32 @@
 import biuoop.GUI;
 import biuoop.DrawSurface;
-import java.util.Random;
 import java.awt.Color;
+import java.util.List;
 /**
  * AbstractArtDrawing class generates abstract art by displaying lines with random start and end points.
  * It marks their midpoints in blue, and marks their intersection points between lines in red.
  */
 public class AbstractArtDrawing {
+    private SegmentIntersector segmentIntersector = new SegmentIntersector();
+    private SceneGenerator sceneGenerator;
+
+    /**
+     * Constructor for the AbstractArtDrawing class, with a generator seeded differently on every run.
+     */
+    public AbstractArtDrawing() {
+        this(new SceneGenerator());
+    }
+
+    /**
+     * Constructor for the AbstractArtDrawing class, the lines are generated by the given generator, so a generator
+     * with a fixed seed draws the same art on every run.
+     *
+     * @param sceneGenerator the generator of the random lines
+     */
+    public AbstractArtDrawing(SceneGenerator sceneGenerator) {
+        this.sceneGenerator = sceneGenerator;
+    }
+
     /**
      * Generates a random line with start and end points.
      *
@@ -14,12 +34,12 @@ public class AbstractArtDrawing {
      */
 
     public Line generateRandomLine() {
-        Random rand = new Random();
-        int xStart = rand.nextInt(Globals.ABSTRACT_ART_WIDTH) + 1; // get integer in range 1-ABSTRACT_ART_WIDTH
-        int yStart = rand.nextInt(Globals.ABSTRACT_ART_HEIGHT) + 1; // get integer in range 1-ABSTRACT_ART_HEIGHT
+        // get integers in range 1-ABSTRACT_ART_WIDTH and 1-ABSTRACT_ART_HEIGHT
+        int xStart = sceneGenerator.nextInt(Globals.ABSTRACT_ART_WIDTH) + 1;
+        int yStart = sceneGenerator.nextInt(Globals.ABSTRACT_ART_HEIGHT) + 1;
         Point start = new Point(xStart, yStart);
-        int xEnd = rand.nextInt(Globals.ABSTRACT_ART_WIDTH) + 1; // get integer in range 1-ABSTRACT_ART_WIDTH
-        int yEnd = rand.nextInt(Globals.ABSTRACT_ART_HEIGHT) + 1; // get integer in range 1-ABSTRACT_ART_HEIGHT
+        int xEnd = sceneGenerator.nextInt(Globals.ABSTRACT_ART_WIDTH) + 1;
+        int yEnd = sceneGenerator.nextInt(Globals.ABSTRACT_ART_HEIGHT) + 1;
         Point end = new Point(xEnd, yEnd);
         return new Line(start, end);
     }
@@ -54,11 +74,17 @@ public class AbstractArtDrawing {
      * @return the generated array of random lines
      */
     public Line[] generateRandomLines() {
-        Line[] lines = new Line[Globals.NUM_RANDOM_LINES];
-        for (int i = 0; i < lines.length; i++) {
-            lines[i] = generateRandomLine();
-        }
-        return lines;
+        return generateRandomLines(Globals.NUM_RANDOM_LINES);
+    }
+
+    /**
+     * Generates an array of random lines of the given length, in parallel for big amounts.
+     *
+     * @param amount the amount of lines
+     * @return the generated array of random lines
+     */
+    public Line[] generateRandomLines(int amount) {
+        return sceneGenerator.createLines(amount, Globals.ABSTRACT_ART_WIDTH, Globals.ABSTRACT_ART_HEIGHT);
     }
 
     /**
@@ -82,14 +108,9 @@ public class AbstractArtDrawing {
      */
     public void markIntersectionPoints(Line[] lines, DrawSurface drawSurface) {
         drawSurface.setColor(Color.RED);
-        Point intersection;
-        for (int i = 0; i < lines.length; i++) {
-            for (int j = 0; j < lines.length; j++) {
-                intersection = lines[i].intersectionWith(lines[j]);
-                if (i != j && intersection != null) {
-                    drawSurface.fillCircle((int) intersection.getX(), (int) intersection.getY(), Globals.POINT_RADIUS);
-                }
-            }
+        List<Point> intersections = segmentIntersector.findIntersections(lines);
+        for (Point intersection : intersections) {
+            drawSurface.fillCircle((int) intersection.getX(), (int) intersection.getY(), Globals.POINT_RADIUS);
         }
     }
 
@@ -0,0 +1,296 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+/**
+ * The AnimationMetrics class records where the time of the animation loop goes.
+ * SimulationLoop times the step of every tick and the bytes the loop thread allocates in it, the render sinks time
+ * the drawing of the frames and the showing of the window, and ScreenMotionManager counts the wall bounces and the
+ * corner hits. The latest samples of every phase are kept in a ring, from which the median and the 99th percentile
+ * are taken. The metrics can be registered as a JMX MBean, and can print a summary line periodically.
+ * The counters can be updated from several threads, the workers of a ParallelMotionManager count bounces at once.
+ */
+public class AnimationMetrics implements AnimationMetricsMBean {
+    // The amount of latest samples kept for every phase, a power of two so the index is a mask
+    private static final int SAMPLES = 1024;
+    private static final double MEDIAN = 0.5;
+    private static final double HIGH_PERCENTILE = 0.99;
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private String name;
+    private ObjectName objectName;
+    private long[][] samples = new long[AnimationPhase.values().length][SAMPLES];
+    // The amount of samples recorded so far for every phase, the next sample goes to this count modulo SAMPLES
+    private long[] sampleCounts = new long[AnimationPhase.values().length];
+    private LongAdder ticks = new LongAdder();
+    private LongAdder renders = new LongAdder();
+    private LongAdder wallBounces = new LongAdder();
+    private LongAdder cornerHits = new LongAdder();
+    private LongAdder stepAllocatedBytes = new LongAdder();
+    private boolean allocationCounted = true;
+    // The time between two summary lines, 0 when no line is printed
+    private long logIntervalNanos;
+    private long lastLog = System.nanoTime();
+
+    /**
+     * Constructor for the AnimationMetrics class.
+     *
+     * @param name the name of the animation, used in the name of the MBean and in the summary line
+     */
+    public AnimationMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Returns the name of the animation.
+     *
+     * @return the name of the animation
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Registers the metrics on the platform MBean server, under the domain BouncingBallAnimation.
+     *
+     * @return true if the metrics were registered
+     */
+    public boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            objectName = new ObjectName("BouncingBallAnimation:type=AnimationMetrics,name=" + ObjectName.quote(name));
+            server.registerMBean(this, objectName);
+            return true;
+        } catch (JMException registrationError) {
+            objectName = null;
+            return false;
+        }
+    }
+
+    /**
+     * Removes the metrics from the platform MBean server, if they were registered.
+     *
+     * @return true if the metrics were unregistered
+     */
+    public boolean unregister() {
+        if (objectName == null) {
+            return false;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            return true;
+        } catch (JMException registrationError) {
+            return false;
+        } finally {
+            objectName = null;
+        }
+    }
+
+    /**
+     * Sets the time between two summary lines printed by recordStep.
+     *
+     * @param logIntervalMillis the time between two lines in milliseconds, 0 to print no lines
+     */
+    public void setLogInterval(long logIntervalMillis) {
+        this.logIntervalNanos = logIntervalMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Records a call that moved the balls, and prints a summary line if it is due.
+     *
+     * @param tickAmount     the amount of ticks the call ran
+     * @param nanos          the time the call took
+     * @param allocatedBytes the bytes the calling thread allocated in the call, negative if they aren't counted
+     */
+    public void recordStep(int tickAmount, long nanos, long allocatedBytes) {
+        if (tickAmount <= 0) {
+            return;
+        }
+        ticks.add(tickAmount);
+        record(AnimationPhase.STEP, nanos / tickAmount);
+        if (allocatedBytes < 0) {
+            allocationCounted = false;
+        } else {
+            stepAllocatedBytes.add(allocatedBytes);
+        }
+        if (logIntervalNanos > 0) {
+            long now = System.nanoTime();
+            if (now - lastLog >= logIntervalNanos) {
+                lastLog = now;
+                System.out.println(summary());
+            }
+        }
+    }
+
+    /**
+     * Records a drawing of the screen.
+     *
+     * @param drawNanos the time the frames and their balls took to draw
+     * @param showNanos the time the drawn surface took to show on the window
+     */
+    public void recordRender(long drawNanos, long showNanos) {
+        renders.increment();
+        record(AnimationPhase.DRAW, drawNanos);
+        record(AnimationPhase.SHOW, showNanos);
+    }
+
+    /**
+     * Counts bounces of balls off walls.
+     *
+     * @param bounces the amount of walls the balls bounced off
+     */
+    public void countWallBounces(int bounces) {
+        wallBounces.add(bounces);
+    }
+
+    /**
+     * Counts a ball that bounced off two walls at once.
+     */
+    public void countCornerHit() {
+        cornerHits.increment();
+    }
+
+    /**
+     * Returns the given percentile of the latest samples of a phase.
+     *
+     * @param phase      the phase of the tick
+     * @param percentile the percentile, between 0 and 1
+     * @return the percentile in nanoseconds, 0 if the phase has no samples
+     */
+    public long percentileNanos(AnimationPhase phase, double percentile) {
+        long[] sorted;
+        synchronized (samples[phase.ordinal()]) {
+            int amount = (int) Math.min(sampleCounts[phase.ordinal()], SAMPLES);
+            sorted = Arrays.copyOf(samples[phase.ordinal()], amount);
+        }
+        if (sorted.length == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted);
+        // the nearest rank
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.min(Math.max(rank, 0), sorted.length - 1)];
+    }
+
+    /**
+     * Returns a line with the counters and the latencies of the phases.
+     *
+     * @return the summary line
+     */
+    public String summary() {
+        StringBuilder builder = new StringBuilder(name).append(": ")
+                .append(getTicks()).append(" ticks, ")
+                .append(getRenders()).append(" renders, ")
+                .append(getWallBounces()).append(" wall bounces, ")
+                .append(getCornerHits()).append(" corner hits");
+        for (AnimationPhase phase : AnimationPhase.values()) {
+            builder.append(String.format(", %s p50/p99 %.1f/%.1f us", phase.name().toLowerCase(),
+                    micros(phase, MEDIAN), micros(phase, HIGH_PERCENTILE)));
+        }
+        long bytes = getStepAllocatedBytes();
+        if (bytes >= 0 && getTicks() > 0) {
+            builder.append(", ").append(bytes / getTicks()).append(" B/tick");
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public long getTicks() {
+        return ticks.sum();
+    }
+
+    @Override
+    public long getRenders() {
+        return renders.sum();
+    }
+
+    @Override
+    public long getWallBounces() {
+        return wallBounces.sum();
+    }
+
+    @Override
+    public long getCornerHits() {
+        return cornerHits.sum();
+    }
+
+    @Override
+    public long getStepAllocatedBytes() {
+        return allocationCounted ? stepAllocatedBytes.sum() : -1;
+    }
+
+    @Override
+    public double getStepP50Micros() {
+        return micros(AnimationPhase.STEP, MEDIAN);
+    }
+
+    @Override
+    public double getStepP99Micros() {
+        return micros(AnimationPhase.STEP, HIGH_PERCENTILE);
+    }
+
+    @Override
+    public double getDrawP50Micros() {
+        return micros(AnimationPhase.DRAW, MEDIAN);
+    }
+
+    @Override
+    public double getDrawP99Micros() {
+        return micros(AnimationPhase.DRAW, HIGH_PERCENTILE);
+    }
+
+    @Override
+    public double getShowP50Micros() {
+        return micros(AnimationPhase.SHOW, MEDIAN);
+    }
+
+    @Override
+    public double getShowP99Micros() {
+        return micros(AnimationPhase.SHOW, HIGH_PERCENTILE);
+    }
+
+    @Override
+    public void reset() {
+        ticks.reset();
+        renders.reset();
+        wallBounces.reset();
+        cornerHits.reset();
+        stepAllocatedBytes.reset();
+        for (AnimationPhase phase : AnimationPhase.values()) {
+            synchronized (samples[phase.ordinal()]) {
+                sampleCounts[phase.ordinal()] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread, or -1 if the JVM doesn't count them.
+     *
+     * @return the allocated bytes of the current thread
+     */
+    static long threadAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    // Adds a sample to the ring of the phase, overwriting the oldest one when the ring is full
+    private void record(AnimationPhase phase, long nanos) {
+        long[] ring = samples[phase.ordinal()];
+        synchronized (ring) {
+            ring[(int) (sampleCounts[phase.ordinal()]++ & (SAMPLES - 1))] = nanos;
+        }
+    }
+
+    private double micros(AnimationPhase phase, double percentile) {
+        return percentileNanos(phase, percentile) / NANOS_PER_MICRO;
+    }
+}
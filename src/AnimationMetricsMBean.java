@@ -0,0 +1,87 @@
+/**
+ * The management interface of AnimationMetrics, the attributes it shows through JMX.
+ * The latencies are taken over the last samples of every phase, in microseconds.
+ */
+public interface AnimationMetricsMBean {
+    /**
+     * Returns the amount of ticks the balls were moved.
+     *
+     * @return the amount of ticks
+     */
+    long getTicks();
+
+    /**
+     * Returns the amount of times the screen was drawn.
+     *
+     * @return the amount of drawn frames
+     */
+    long getRenders();
+
+    /**
+     * Returns the amount of times a ball bounced off a wall, a corner counts as two walls.
+     *
+     * @return the amount of wall bounces
+     */
+    long getWallBounces();
+
+    /**
+     * Returns the amount of times a ball bounced off two walls at once.
+     *
+     * @return the amount of corner hits
+     */
+    long getCornerHits();
+
+    /**
+     * Returns the bytes allocated by the loop thread while moving the balls, or -1 if the JVM doesn't count them.
+     *
+     * @return the allocated bytes
+     */
+    long getStepAllocatedBytes();
+
+    /**
+     * Returns the median time of a step.
+     *
+     * @return the median step time in microseconds
+     */
+    double getStepP50Micros();
+
+    /**
+     * Returns the 99th percentile time of a step.
+     *
+     * @return the 99th percentile step time in microseconds
+     */
+    double getStepP99Micros();
+
+    /**
+     * Returns the median time of drawing the screen.
+     *
+     * @return the median draw time in microseconds
+     */
+    double getDrawP50Micros();
+
+    /**
+     * Returns the 99th percentile time of drawing the screen.
+     *
+     * @return the 99th percentile draw time in microseconds
+     */
+    double getDrawP99Micros();
+
+    /**
+     * Returns the median time of showing the drawn surface.
+     *
+     * @return the median show time in microseconds
+     */
+    double getShowP50Micros();
+
+    /**
+     * Returns the 99th percentile time of showing the drawn surface.
+     *
+     * @return the 99th percentile show time in microseconds
+     */
+    double getShowP99Micros();
+
+    /**
+     * Clears the counters and the latency samples.
+     */
+    void reset();
+}
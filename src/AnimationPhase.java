@@ -0,0 +1,11 @@
+/**
+ * The AnimationPhase enum names the phases of a tick of the animation loop that AnimationMetrics times.
+ */
+public enum AnimationPhase {
+    // Moving the balls of all the frames one step
+    STEP,
+    // Filling the frames and drawing their balls
+    DRAW,
+    // Showing the drawn surface on the window
+    SHOW
+}
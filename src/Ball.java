@@ -4,13 +4,14 @@ import java.awt.Color;
  * The Ball class represents a ball in 2D plane, defined by its center point, radius, color and velocity.
  * It provides methods to access and modify the ball's properties, and methods to draw the ball on a DrawSurface
  * and move the ball within its unique limits.
+ * A ball is a lightweight view of a single slot of a BallStore. A new ball owns a store of its own, and once it is
+ * added to a Frame it is moved into the store of the frame, so the frame can step all its balls over primitive
+ * arrays while the ball keeps reflecting the current state.
  */
 public class Ball {
-    // The ball object attributes
-    private Point center;
-    private int radius;
-    private java.awt.Color color;
-    private Velocity velocity;
+    // The store that holds the ball attributes and the index of the ball in it
+    private BallStore store;
+    private int index;
 
     /**
      * Creates a new Ball object with a center point, radius and color.
@@ -20,10 +21,8 @@ public class Ball {
      * @param color  the color of the ball
      */
     public Ball(Point center, int radius, java.awt.Color color) {
-        this.center = center;
-        this.radius = radius;
-        this.color = color;
-
+        this.store = new BallStore(1);
+        this.index = store.add(center.getX(), center.getY(), 0, 0, radius, color);
     }
 
     /**
@@ -39,12 +38,35 @@ public class Ball {
     }
 
     /**
-     * Returns the center point of the ball.
+     * Creates a Ball view of an existing ball in a BallStore.
+     *
+     * @param store the store that holds the ball
+     * @param index the index of the ball in the store
+     */
+    Ball(BallStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * Moves the ball into the given store, so from now on the ball is a view of its slot in that store.
+     *
+     * @param target the store to move the ball into
+     */
+    void moveTo(BallStore target) {
+        int targetIndex = target.add(store.getX(index), store.getY(index), store.getDx(index), store.getDy(index),
+                store.getRadius(index), store.getColor(index));
+        store = target;
+        index = targetIndex;
+    }
+
+    /**
+     * Returns the center point of the ball. The point is a copy, changing it doesn't move the ball.
      *
      * @return the center point of the ball
      */
     public Point getCenter() {
-        return center;
+        return new Point(store.getX(index), store.getY(index));
     }
 
     /**
@@ -53,7 +75,7 @@ public class Ball {
      * @return the radius of the ball
      */
     public int getSize() {
-        return radius;
+        return store.getRadius(index);
     }
 
     /**
@@ -62,7 +84,7 @@ public class Ball {
      * @return the x coordinate of the center
      */
     public int getX() {
-        return (int) center.getX();
+        return (int) store.getX(index);
     }
 
     /**
@@ -71,7 +93,7 @@ public class Ball {
      * @return the y coordinate of the center
      */
     public int getY() {
-        return (int) center.getY();
+        return (int) store.getY(index);
     }
 
     /**
@@ -80,25 +102,31 @@ public class Ball {
      * @return the color of the ball
      */
     public java.awt.Color getColor() {
-        return color;
+        return store.getColor(index);
     }
 
     /**
      * Returns the velocity of the ball(velocity has the dx, and dy values).
+     * The velocity is a copy, changing it doesn't change the ball. A ball without a velocity doesn't move.
      *
      * @return the velocity of the ball
      */
     public Velocity getVelocity() {
-        return velocity;
+        return new Velocity(store.getDx(index), store.getDy(index));
     }
 
     /**
-     * Sets the velocity of the ball.
+     * Sets the velocity of the ball. A ball without a velocity (null) stays in place, like a ball with a velocity
+     * of 0.
      *
-     * @param velocity the velocity of the ball
+     * @param velocity the velocity of the ball, or null
      */
     public void setVelocity(Velocity velocity) {
-        this.velocity = velocity;
+        if (velocity == null) {
+            store.setVelocity(index, 0, 0);
+            return;
+        }
+        store.setVelocity(index, velocity.getDx(), velocity.getDy());
     }
 
     /**
@@ -108,7 +136,7 @@ public class Ball {
      * @param dy the dy value of the ball
      */
     public void setVelocity(double dx, double dy) {
-        velocity = new Velocity(dx, dy);
+        store.setVelocity(index, dx, dy);
     }
 
     /**
@@ -117,7 +145,7 @@ public class Ball {
      * @param radius the radius of the ball
      */
     public void setRadius(int radius) {
-        this.radius = radius;
+        store.setRadius(index, radius);
     }
 
     /**
@@ -126,7 +154,7 @@ public class Ball {
      * @param color the color of the ball
      */
     public void setColor(Color color) {
-        this.color = color;
+        store.setColor(index, color);
     }
 
     /**
@@ -135,7 +163,7 @@ public class Ball {
      * @param center the center of the ball
      */
     public void setCenter(Point center) {
-        this.center = center;
+        store.setCenter(index, center.getX(), center.getY());
     }
 
     /**
@@ -145,6 +173,16 @@ public class Ball {
      * @return the speed of the ball
      */
     public int getSpeed(double radius) {
+        return speedOf(radius);
+    }
+
+    /**
+     * Calculates the speed of a ball based on its size, without a ball. The smaller the faster.
+     *
+     * @param radius the size of the ball
+     * @return the speed of the ball
+     */
+    static int speedOf(double radius) {
         int speed;
         if (radius >= Globals.SIZE_BIG_BALL) {
             speed = Globals.MIN_SPEED;
@@ -160,7 +198,7 @@ public class Ball {
      * @param surface the DrawSurface to draw the ball on
      */
     public void drawOn(DrawSurface surface) {
-        surface.setColor(color);
-        surface.fillCircle((int) center.getX(), (int) center.getY(), radius);
+        surface.setColor(store.getColor(index));
+        surface.fillCircle((int) store.getX(index), (int) store.getY(index), store.getRadius(index));
     }
 }
\ No newline at end of file
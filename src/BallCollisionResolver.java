@@ -0,0 +1,97 @@
+/**
+ * The BallCollisionResolver class bounces the balls of a frame off each other.
+ * The candidate pairs are found with a UniformGrid (broad phase), so only balls in neighbouring cells are
+ * compared, and every touching pair that is moving towards each other gets an elastic collision, where the mass
+ * of a ball is proportional to its area. The pairs are resolved sequentially in a fixed order, so the result is
+ * deterministic.
+ */
+public class BallCollisionResolver {
+    private UniformGrid grid = new UniformGrid();
+
+    /**
+     * Resolves the collisions between the balls of the given frame.
+     *
+     * @param frame the frame whose balls collide
+     * @return the amount of colliding pairs that were resolved
+     */
+    public int resolve(Frame frame) {
+        BallStore store = frame.getBallStore();
+        if (store.size() < 2) {
+            return 0;
+        }
+        grid.rebuild(frame);
+        int collisions = 0;
+        int columns = grid.getColumns();
+        int rows = grid.getRows();
+        for (int i = 0; i < store.size(); i++) {
+            int cell = grid.getBallCell(i);
+            int column = cell % columns;
+            int row = cell / columns;
+            for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, rows - 1); r++) {
+                for (int c = Math.max(column - 1, 0); c <= Math.min(column + 1, columns - 1); c++) {
+                    int neighbour = r * columns + c;
+                    for (int p = grid.getCellStart(neighbour); p < grid.getCellEnd(neighbour); p++) {
+                        int j = grid.getBall(p);
+                        // every pair is handled once, by its lower index
+                        if (j > i && collide(store, i, j, frame)) {
+                            collisions++;
+                        }
+                    }
+                }
+            }
+        }
+        return collisions;
+    }
+
+    // Bounces the two balls off each other if they touch, returns true if they collided
+    private boolean collide(BallStore store, int i, int j, Frame frame) {
+        double normalX = store.getX(j) - store.getX(i);
+        double normalY = store.getY(j) - store.getY(i);
+        double minDistance = store.getRadius(i) + store.getRadius(j);
+        double distanceSquared = normalX * normalX + normalY * normalY;
+        if (distanceSquared >= minDistance * minDistance) {
+            return false;
+        }
+        double distance = Math.sqrt(distanceSquared);
+        if (distance < Globals.THRESHOLD) {
+            // the centers are on top of each other, separate them along the x-axis
+            normalX = 1;
+            normalY = 0;
+        } else {
+            normalX /= distance;
+            normalY /= distance;
+        }
+        double massI = (double) store.getRadius(i) * store.getRadius(i);
+        double massJ = (double) store.getRadius(j) * store.getRadius(j);
+        double totalMass = massI + massJ;
+        // push the balls apart so they don't touch anymore, the lighter ball moves more
+        double overlap = minDistance - distance;
+        moveInFrame(store, i, -normalX * overlap * massJ / totalMass, -normalY * overlap * massJ / totalMass, frame);
+        moveInFrame(store, j, normalX * overlap * massI / totalMass, normalY * overlap * massI / totalMass, frame);
+        // exchange momentum along the normal only if the balls are moving towards each other
+        double approachSpeed = (store.getDx(j) - store.getDx(i)) * normalX
+                + (store.getDy(j) - store.getDy(i)) * normalY;
+        if (approachSpeed < 0) {
+            double impulseI = 2 * massJ / totalMass * approachSpeed;
+            double impulseJ = 2 * massI / totalMass * approachSpeed;
+            store.setVelocity(i, store.getDx(i) + impulseI * normalX, store.getDy(i) + impulseI * normalY);
+            store.setVelocity(j, store.getDx(j) - impulseJ * normalX, store.getDy(j) - impulseJ * normalY);
+        }
+        return true;
+    }
+
+    // Moves a ball by the given offset without letting it leave the frame
+    private void moveInFrame(BallStore store, int i, double offsetX, double offsetY, Frame frame) {
+        int size = store.getRadius(i);
+        store.setCenter(i, clamp(store.getX(i) + offsetX, frame.getLeftBound() + size, frame.getRightBound() - size),
+                clamp(store.getY(i) + offsetY, frame.getUpperBound() + size, frame.getLowerBound() - size));
+    }
+
+    // Limits a value to a range, if the range is empty the value is left as is
+    private double clamp(double value, double min, double max) {
+        if (min > max) {
+            return value;
+        }
+        return Math.min(Math.max(value, min), max);
+    }
+}
@@ -0,0 +1,29 @@
+import biuoop.DrawSurface;
+/**
+ * A BallPainter draws the balls of a frame on a DrawSurface, in an order of its choice.
+ * Renderers ask for the order once per frame and then hand the painter the balls to draw in that order, all of
+ * them or only some (for example the ones under a dirty region), so partial and full drawings stack the balls the
+ * same way.
+ */
+public interface BallPainter {
+    /**
+     * Returns the indexes of the balls of the frame in the order the painter draws them.
+     * Only the first entries of the array, as many as the balls of the frame, belong to the order. The array may be
+     * cached by the painter and must not be changed.
+     *
+     * @param frame the frame whose balls are drawn
+     * @return the indexes of the balls in drawing order
+     */
+    int[] drawOrder(Frame frame);
+
+    /**
+     * Draws some of the balls of the frame.
+     *
+     * @param frame   the frame whose balls are drawn
+     * @param balls   an array of ball indexes, in the order given by drawOrder
+     * @param from    the position in the array of the first ball to draw
+     * @param to      the position in the array after the last ball to draw
+     * @param surface the surface to draw on
+     */
+    void paint(Frame frame, int[] balls, int from, int to, DrawSurface surface);
+}
@@ -0,0 +1,400 @@
+import java.awt.Color;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+/**
+ * The BallStore class holds the state of many balls in parallel primitive arrays (structure of arrays).
+ * Each ball is identified by its index in the store. The center and velocity of the balls are kept in
+ * double arrays and the radius and color in int arrays, so stepping all the balls is a plain loop over
+ * primitive arrays that doesn't allocate and doesn't chase pointers.
+ * A ball without a velocity (dx and dy of 0) is asleep: nothing moves it until it gets a velocity, by
+ * setVelocity or by a collision, which wakes it up. The store counts its awake balls, so a store without any is
+ * skipped by the stepping, and it keeps a version of the positions, so a drawing can tell nothing moved.
+ */
+public class BallStore {
+    private static final int DEFAULT_CAPACITY = 16;
+    // The ball attributes, one slot per ball
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private int[] radius;
+    private int[] rgb;
+    // The color objects of the balls, kept for drawing so no color is created per frame
+    private Color[] colors;
+    private int size;
+    // Counts the changes to the colors, so drawing code can cache what it derives from them
+    private int colorVersion;
+    // The amount of balls with a velocity
+    private int awakeCount;
+    // Counts the changes to the centers and radii. It is only increased by the first change after it was read, so
+    // stepping doesn't write it for every ball. Workers that step parts of the store at once may race on it, which
+    // can lose an increase but never leaves it unchanged
+    private int positionVersion;
+    private boolean positionVersionRead;
+
+    /**
+     * Creates a new empty BallStore with room for the given amount of balls.
+     *
+     * @param capacity the initial amount of balls the store can hold without growing
+     */
+    public BallStore(int capacity) {
+        int initialCapacity = Math.max(capacity, 1);
+        x = new double[initialCapacity];
+        y = new double[initialCapacity];
+        dx = new double[initialCapacity];
+        dy = new double[initialCapacity];
+        radius = new int[initialCapacity];
+        rgb = new int[initialCapacity];
+        colors = new Color[initialCapacity];
+    }
+
+    /**
+     * Creates a new empty BallStore with a default capacity.
+     */
+    public BallStore() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a ball to the store and returns its index.
+     *
+     * @param centerX    the x coordinate of the center of the ball
+     * @param centerY    the y coordinate of the center of the ball
+     * @param velocityX  the change in position on the x-axis(dx) of the ball
+     * @param velocityY  the change in position on the y-axis(dy) of the ball
+     * @param ballRadius the radius of the ball
+     * @param color      the color of the ball
+     * @return the index of the new ball in the store
+     */
+    public int add(double centerX, double centerY, double velocityX, double velocityY, int ballRadius,
+                   Color color) {
+        if (size == x.length) {
+            grow();
+        }
+        x[size] = centerX;
+        y[size] = centerY;
+        dx[size] = velocityX;
+        dy[size] = velocityY;
+        radius[size] = ballRadius;
+        setColor(size, color);
+        if (isAwake(size)) {
+            awakeCount++;
+        }
+        positionsChanged();
+        return size++;
+    }
+
+    /**
+     * Returns the amount of balls in the store.
+     *
+     * @return the amount of balls in the store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x coordinate of the center of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @return the x coordinate of the center of the ball
+     */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    /**
+     * Returns the y coordinate of the center of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @return the y coordinate of the center of the ball
+     */
+    public double getY(int index) {
+        return y[index];
+    }
+
+    /**
+     * Returns the change in position on the x-axis(dx) of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @return the dx of the ball
+     */
+    public double getDx(int index) {
+        return dx[index];
+    }
+
+    /**
+     * Returns the change in position on the y-axis(dy) of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @return the dy of the ball
+     */
+    public double getDy(int index) {
+        return dy[index];
+    }
+
+    /**
+     * Returns the radius of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @return the radius of the ball
+     */
+    public int getRadius(int index) {
+        return radius[index];
+    }
+
+    /**
+     * Returns the color of the ball at the given index as a packed rgb value.
+     *
+     * @param index the index of the ball
+     * @return the rgb value of the color of the ball
+     */
+    public int getRgb(int index) {
+        return rgb[index];
+    }
+
+    /**
+     * Returns the color of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @return the color of the ball
+     */
+    public Color getColor(int index) {
+        Color color = colors[index];
+        if (color == null && rgb[index] != 0) {
+            // the balls of a store read from buffers get their color objects on first use
+            color = new Color(rgb[index], true);
+            colors[index] = color;
+        }
+        return color;
+    }
+
+    /**
+     * Sets the center of the ball at the given index.
+     *
+     * @param index   the index of the ball
+     * @param centerX the new x coordinate of the center
+     * @param centerY the new y coordinate of the center
+     */
+    public void setCenter(int index, double centerX, double centerY) {
+        x[index] = centerX;
+        y[index] = centerY;
+        if (positionVersionRead) {
+            positionsChanged();
+        }
+    }
+
+    /**
+     * Sets the velocity of the ball at the given index.
+     *
+     * @param index     the index of the ball
+     * @param velocityX the new dx of the ball
+     * @param velocityY the new dy of the ball
+     */
+    public void setVelocity(int index, double velocityX, double velocityY) {
+        boolean wasAwake = isAwake(index);
+        dx[index] = velocityX;
+        dy[index] = velocityY;
+        countAwake(wasAwake, index);
+    }
+
+    /**
+     * Sets the change in position on the x-axis(dx) of the ball at the given index.
+     *
+     * @param index     the index of the ball
+     * @param velocityX the new dx of the ball
+     */
+    public void setDx(int index, double velocityX) {
+        boolean wasAwake = isAwake(index);
+        dx[index] = velocityX;
+        countAwake(wasAwake, index);
+    }
+
+    /**
+     * Sets the change in position on the y-axis(dy) of the ball at the given index.
+     *
+     * @param index     the index of the ball
+     * @param velocityY the new dy of the ball
+     */
+    public void setDy(int index, double velocityY) {
+        boolean wasAwake = isAwake(index);
+        dy[index] = velocityY;
+        countAwake(wasAwake, index);
+    }
+
+    /**
+     * Sets the radius of the ball at the given index.
+     *
+     * @param index      the index of the ball
+     * @param ballRadius the new radius of the ball
+     */
+    public void setRadius(int index, int ballRadius) {
+        radius[index] = ballRadius;
+        positionsChanged();
+    }
+
+    /**
+     * Sets the color of the ball at the given index.
+     *
+     * @param index the index of the ball
+     * @param color the new color of the ball
+     */
+    public void setColor(int index, Color color) {
+        colors[index] = color;
+        rgb[index] = color == null ? 0 : color.getRGB();
+        colorVersion++;
+    }
+
+    /**
+     * Returns a number that changes whenever a ball is added or a color of a ball is set.
+     *
+     * @return the version of the colors of the store
+     */
+    public int getColorVersion() {
+        return colorVersion;
+    }
+
+    /**
+     * Returns true if the ball at the given index has a velocity, a ball without one is asleep and doesn't move.
+     *
+     * @param index the index of the ball
+     * @return true if the ball is awake
+     */
+    public boolean isAwake(int index) {
+        return dx[index] != 0 || dy[index] != 0;
+    }
+
+    /**
+     * Returns the amount of balls that have a velocity.
+     *
+     * @return the amount of awake balls
+     */
+    public int getAwakeCount() {
+        return awakeCount;
+    }
+
+    /**
+     * Returns a number that changes whenever a ball is added, moved or resized after the last call. Two equal
+     * versions mean that no ball moved in between.
+     *
+     * @return the version of the positions of the store
+     */
+    public int getPositionVersion() {
+        positionVersionRead = true;
+        return positionVersion;
+    }
+
+    /**
+     * Copies the attributes of all the balls into the given buffers, a column per buffer, in bulk.
+     *
+     * @param xs    the buffer of the x coordinates of the centers
+     * @param ys    the buffer of the y coordinates of the centers
+     * @param dxs   the buffer of the dx of the velocities
+     * @param dys   the buffer of the dy of the velocities
+     * @param radii the buffer of the radii
+     * @param rgbs  the buffer of the colors as RGB values
+     */
+    void writeTo(DoubleBuffer xs, DoubleBuffer ys, DoubleBuffer dxs, DoubleBuffer dys, IntBuffer radii,
+                 IntBuffer rgbs) {
+        xs.put(x, 0, size);
+        ys.put(y, 0, size);
+        dxs.put(dx, 0, size);
+        dys.put(dy, 0, size);
+        radii.put(radius, 0, size);
+        rgbs.put(rgb, 0, size);
+    }
+
+    /**
+     * Returns a new store with the given amount of balls, read in bulk from the given buffers, a column per
+     * buffer. The color objects of the balls are only created when they are first asked for.
+     *
+     * @param amount the amount of balls
+     * @param xs     the buffer of the x coordinates of the centers
+     * @param ys     the buffer of the y coordinates of the centers
+     * @param dxs    the buffer of the dx of the velocities
+     * @param dys    the buffer of the dy of the velocities
+     * @param radii  the buffer of the radii
+     * @param rgbs   the buffer of the colors as RGB values, 0 for a ball without a color
+     * @return the new store
+     */
+    static BallStore readFrom(int amount, DoubleBuffer xs, DoubleBuffer ys, DoubleBuffer dxs, DoubleBuffer dys,
+                              IntBuffer radii, IntBuffer rgbs) {
+        BallStore store = new BallStore(amount);
+        xs.get(store.x, 0, amount);
+        ys.get(store.y, 0, amount);
+        dxs.get(store.dx, 0, amount);
+        dys.get(store.dy, 0, amount);
+        radii.get(store.radius, 0, amount);
+        rgbs.get(store.rgb, 0, amount);
+        store.size = amount;
+        store.colorVersion++;
+        for (int i = 0; i < amount; i++) {
+            if (store.isAwake(i)) {
+                store.awakeCount++;
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Makes the store a copy of the given store, so another thread can read the balls while the given store keeps
+     * changing. The centers and radii are only copied when the version of the positions changed since the last copy,
+     * and the colors when the version of the colors changed. The copy takes the versions of the given store, so two
+     * copies of it with equal versions hold equal positions.
+     *
+     * @param source the store to copy
+     */
+    void copyFrom(BallStore source) {
+        if (x.length < source.size) {
+            x = new double[source.size];
+            y = new double[source.size];
+            dx = new double[source.size];
+            dy = new double[source.size];
+            radius = new int[source.size];
+            rgb = new int[source.size];
+            colors = new Color[source.size];
+            size = -1;
+        }
+        int sourceVersion = source.getPositionVersion();
+        if (size != source.size || positionVersion != sourceVersion) {
+            System.arraycopy(source.x, 0, x, 0, source.size);
+            System.arraycopy(source.y, 0, y, 0, source.size);
+            System.arraycopy(source.radius, 0, radius, 0, source.size);
+        }
+        if (size != source.size || colorVersion != source.colorVersion) {
+            System.arraycopy(source.rgb, 0, rgb, 0, source.size);
+            System.arraycopy(source.colors, 0, colors, 0, source.size);
+        }
+        System.arraycopy(source.dx, 0, dx, 0, source.size);
+        System.arraycopy(source.dy, 0, dy, 0, source.size);
+        size = source.size;
+        awakeCount = source.awakeCount;
+        positionVersion = sourceVersion;
+        colorVersion = source.colorVersion;
+    }
+
+    // Updates the amount of awake balls after the velocity of a ball was set
+    private void countAwake(boolean wasAwake, int index) {
+        if (wasAwake != isAwake(index)) {
+            awakeCount += wasAwake ? -1 : 1;
+        }
+    }
+
+    private void positionsChanged() {
+        positionVersion++;
+        positionVersionRead = false;
+    }
+
+    // Doubles the capacity of all the arrays of the store
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        dx = Arrays.copyOf(dx, capacity);
+        dy = Arrays.copyOf(dy, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        rgb = Arrays.copyOf(rgb, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+    }
+}
@@ -16,8 +16,7 @@ public class BouncingBallAnimation {
                 || ball.getCenter().getX() + ball.getSize() >= frame.getRightBound()
                 || ball.getCenter().getY() <= ball.getSize()
                 || ball.getCenter().getY() + ball.getSize() >= frame.getLowerBound()) {
-            ball.getCenter().setX(frame.getRightBound() / 2.0);
-            ball.getCenter().setY(frame.getLowerBound() / 2.0);
+            ball.setCenter(new Point(frame.getRightBound() / 2.0, frame.getLowerBound() / 2.0));
         }
 
     }
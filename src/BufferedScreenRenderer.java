@@ -0,0 +1,419 @@
+import biuoop.DrawSurface;
+import biuoop.GUI;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+/**
+ * A RenderSink that keeps the picture of the screen in an off-screen image and only repaints what changed.
+ * The image is split into square tiles. Every frame the bounding box of each ball is compared with the one it was
+ * drawn with, and the tiles under the old and the new box of a moved ball become dirty. Only the dirty tiles are
+ * repainted: the frames and the balls that touch them are drawn again, clipped to the tiles, in the same order as
+ * a full drawing, so overlapping frames and balls come out the same. The image is then shown with a single
+ * drawImage, so the drawing cost grows with the motion on the screen instead of with the amount of balls.
+ */
+public class BufferedScreenRenderer implements RenderSink {
+    private static final int TILE_SIZE = 32;
+    // When more than this part of the tiles is dirty, the whole image is drawn without a clip
+    private static final double FULL_REDRAW_RATIO = 0.5;
+    private static final Runnable NO_OP = new Runnable() {
+        @Override
+        public void run() {
+        }
+    };
+    private String name;
+    private GUI gui;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private DrawSurface imageSurface;
+    private BallPainter ballPainter = new DirectBallPainter();
+    // Times the drawing and the showing, null when nothing is timed
+    private AnimationMetrics metrics;
+    private Color background;
+    private int tileColumns;
+    private int tileRows;
+    private boolean[] dirtyTiles;
+    // The indexes of the dirty tiles, so clearing them doesn't scan all the tiles
+    private int[] dirtyList;
+    private int dirtyCount;
+    // The dirty tiles of a row are merged into runs, which are repainted one by one with a rectangular clip.
+    // tileRun holds the run of each dirty tile and -1 for the clean ones
+    private int[] tileRun;
+    private int runCount;
+    private int[] runX;
+    private int[] runY;
+    private int[] runWidth;
+    // The balls to draw in run r are entries runStart[r] .. runStart[r + 1] - 1, in drawing order
+    private int[] runStart;
+    private int[] entryFrame = new int[16];
+    private int[] entryBall = new int[16];
+    // The frames that overlap the run being repainted, in drawing order
+    private int[] runFrames = new int[0];
+    private boolean fullRedraw = true;
+    // drawnBoxes[f] holds the box each ball of frame f was last drawn with, as x0, y0, x1, y1 (exclusive)
+    private int[][] drawnBoxes = new int[0][];
+    // drawnVersions[f] is the version of the positions of frame f when its boxes were last compared, the balls of a
+    // frame whose version didn't change since then didn't move and aren't compared again
+    private int[] drawnVersions = new int[0];
+    // drawnColorVersions[f] is the version of the colors of frame f when it was last drawn, all the balls of a frame
+    // whose colors changed since then are drawn again
+    private int[] drawnColorVersions = new int[0];
+    private int repaintedTiles;
+
+    /**
+     * Constructor for the BufferedScreenRenderer class. The window is opened on the first render, so the image can
+     * also be drawn without a display.
+     *
+     * @param screen the screen that is drawn
+     */
+    public BufferedScreenRenderer(Screen screen) {
+        this.name = screen.getName();
+        int width = screen.getRightBound();
+        int height = screen.getLowerBound();
+        this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        this.graphics = image.createGraphics();
+        this.imageSurface = new ImageDrawSurface(graphics, width, height);
+        Color panelBackground = UIManager.getColor("Panel.background");
+        this.background = panelBackground != null ? panelBackground : Color.WHITE;
+        this.tileColumns = (width + TILE_SIZE - 1) / TILE_SIZE;
+        this.tileRows = (height + TILE_SIZE - 1) / TILE_SIZE;
+        this.dirtyTiles = new boolean[tileColumns * tileRows];
+        this.dirtyList = new int[tileColumns * tileRows];
+        this.tileRun = new int[tileColumns * tileRows];
+        Arrays.fill(tileRun, -1);
+        this.runX = new int[tileColumns * tileRows];
+        this.runY = new int[tileColumns * tileRows];
+        this.runWidth = new int[tileColumns * tileRows];
+        this.runStart = new int[tileColumns * tileRows + 1];
+    }
+
+    /**
+     * Sets the painter that draws the balls of every frame. The whole image is drawn again on the next update.
+     *
+     * @param ballPainter the ball painter
+     */
+    public void setBallPainter(BallPainter ballPainter) {
+        this.ballPainter = ballPainter;
+        fullRedraw = true;
+    }
+
+    /**
+     * Sets the metrics that time the drawing of the screen and the showing of the window.
+     *
+     * @param metrics the metrics, or null to time nothing
+     */
+    public void setMetrics(AnimationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Repaints what changed in the image and shows it on the window.
+     *
+     * @param screen the screen to draw
+     */
+    @Override
+    public void render(Screen screen) {
+        if (gui == null) {
+            gui = new GUI(name, image.getWidth(), image.getHeight());
+        }
+        // the window paints the image later on the event thread, wait until the last frame was painted before
+        // changing the image again
+        try {
+            SwingUtilities.invokeAndWait(NO_OP);
+        } catch (InterruptedException interruptedError) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (InvocationTargetException noOpError) {
+            throw new IllegalStateException(noOpError);
+        }
+        long start = System.nanoTime();
+        updateImage(screen);
+        long drawn = System.nanoTime();
+        DrawSurface drawSurface = gui.getDrawSurface();
+        drawSurface.drawImage(0, 0, image);
+        gui.show(drawSurface);
+        if (metrics != null) {
+            metrics.recordRender(drawn - start, System.nanoTime() - drawn);
+        }
+    }
+
+    /**
+     * Closes the window, if it was opened.
+     */
+    @Override
+    public void close() {
+        if (gui != null) {
+            gui.close();
+            gui = null;
+        }
+    }
+
+    /**
+     * Repaints the parts of the image that changed since the last update, without showing it.
+     *
+     * @param screen the screen to draw
+     * @return the amount of tiles that were repainted
+     */
+    public int updateImage(Screen screen) {
+        Frame[] frames = screen.getFrames();
+        if (drawnBoxes.length != frames.length) {
+            drawnBoxes = new int[frames.length][];
+            drawnVersions = new int[frames.length];
+            drawnColorVersions = new int[frames.length];
+            fullRedraw = true;
+        }
+        int balls = 0;
+        for (int f = 0; f < frames.length; f++) {
+            BallStore store = frames[f].getBallStore();
+            if (drawnBoxes[f] == null || drawnBoxes[f].length != store.size() * 4) {
+                drawnBoxes[f] = new int[store.size() * 4];
+                fullRedraw = true;
+            }
+            int version = store.getPositionVersion();
+            boolean recolored = store.getColorVersion() != drawnColorVersions[f];
+            if (fullRedraw || recolored || version != drawnVersions[f]) {
+                markMovedBalls(store, drawnBoxes[f], recolored && !fullRedraw);
+                drawnVersions[f] = version;
+                drawnColorVersions[f] = store.getColorVersion();
+            }
+            balls += store.size();
+        }
+        if (!fullRedraw && dirtyCount == 0) {
+            repaintedTiles = 0;
+        } else if (!fullRedraw && dirtyCount <= FULL_REDRAW_RATIO * dirtyTiles.length
+                && repaintDirtyTiles(frames, screen.getFrameIndex(), balls)) {
+            repaintedTiles = dirtyCount;
+        } else {
+            drawAll(frames);
+            repaintedTiles = dirtyTiles.length;
+            fullRedraw = false;
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            dirtyTiles[dirtyList[i]] = false;
+        }
+        dirtyCount = 0;
+        return repaintedTiles;
+    }
+
+    /**
+     * Returns the off-screen image of the screen.
+     *
+     * @return the image
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the amount of tiles repainted by the last update.
+     *
+     * @return the amount of repainted tiles
+     */
+    public int getRepaintedTiles() {
+        return repaintedTiles;
+    }
+
+    /**
+     * Returns the amount of tiles the image is split into.
+     *
+     * @return the amount of tiles
+     */
+    public int getTileCount() {
+        return dirtyTiles.length;
+    }
+
+    // Compares every ball with the box it was drawn with, and marks the tiles under both boxes of a moved ball. When
+    // the colors changed, the tiles of every ball are marked, moved or not
+    private void markMovedBalls(BallStore store, int[] boxes, boolean recolored) {
+        for (int i = 0; i < store.size(); i++) {
+            int radius = store.getRadius(i);
+            int x = (int) store.getX(i);
+            int y = (int) store.getY(i);
+            // fillCircle fills the oval from (x - radius, y - radius) with a size of 2 * radius
+            int x0 = x - radius;
+            int y0 = y - radius;
+            int x1 = x + radius + 1;
+            int y1 = y + radius + 1;
+            int b = i * 4;
+            if (boxes[b] == x0 && boxes[b + 1] == y0 && boxes[b + 2] == x1 && boxes[b + 3] == y1) {
+                if (recolored) {
+                    markTiles(x0, y0, x1, y1);
+                }
+                continue;
+            }
+            markTiles(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3]);
+            markTiles(x0, y0, x1, y1);
+            boxes[b] = x0;
+            boxes[b + 1] = y0;
+            boxes[b + 2] = x1;
+            boxes[b + 3] = y1;
+        }
+    }
+
+    // Marks the tiles under a box as dirty
+    private void markTiles(int x0, int y0, int x1, int y1) {
+        if (x1 <= x0 || y1 <= y0) {
+            return;
+        }
+        for (int row = tileRow(y0); row <= tileRow(y1 - 1); row++) {
+            for (int column = tileColumn(x0); column <= tileColumn(x1 - 1); column++) {
+                int tile = row * tileColumns + column;
+                if (!dirtyTiles[tile]) {
+                    dirtyTiles[tile] = true;
+                    dirtyList[dirtyCount++] = tile;
+                }
+            }
+        }
+    }
+
+    // Draws the whole image
+    private void drawAll(Frame[] frames) {
+        graphics.setColor(background);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        for (Frame frame : frames) {
+            imageSurface.setColor(frame.getColor());
+            imageSurface.fillRectangle(frame.getLeftBound(), frame.getUpperBound(), frame.getWidth(),
+                    frame.getHeight());
+            ballPainter.paint(frame, ballPainter.drawOrder(frame), 0, frame.getBallStore().size(), imageSurface);
+        }
+    }
+
+    // Repaints the dirty runs, each one clipped to its rectangle, with the frames and the balls that touch it. The
+    // frames that touch a run are found in the frame index, so a run doesn't go over all the frames.
+    // Returns false without drawing when drawing the whole image is cheaper, which happens when the runs hold many
+    // balls since a ball that spans a few runs is drawn once in each of them. Filling a tile takes about as long as
+    // drawing a ball, so both costs are counted as tiles plus balls
+    private boolean repaintDirtyTiles(Frame[] frames, FrameIndex frameIndex, int ballsAmount) {
+        buildRuns();
+        // count the balls of every run, then place them, so the balls of a run stay in drawing order
+        Arrays.fill(runStart, 0, runCount + 1, 0);
+        int entries = assignBalls(frames, false);
+        if (dirtyCount + entries >= dirtyTiles.length + ballsAmount) {
+            clearRuns();
+            return false;
+        }
+        for (int r = 0; r < runCount; r++) {
+            runStart[r + 1] += runStart[r];
+        }
+        if (entryBall.length < entries) {
+            entryBall = new int[entries * 2];
+            entryFrame = new int[entries * 2];
+        }
+        if (runFrames.length < frames.length) {
+            runFrames = new int[frames.length];
+        }
+        assignBalls(frames, true);
+        for (int r = 0; r < runCount; r++) {
+            graphics.setClip(runX[r], runY[r], runWidth[r], TILE_SIZE);
+            graphics.setColor(background);
+            graphics.fillRect(runX[r], runY[r], runWidth[r], TILE_SIZE);
+            int entry = r == 0 ? 0 : runStart[r - 1];
+            int end = runStart[r];
+            int runFrameCount = frameIndex.query(runX[r], runY[r], runX[r] + runWidth[r], runY[r] + TILE_SIZE,
+                    runFrames);
+            int k = 0;
+            // the frames of the run, merged with the frames of its balls since a ball may stick out of its frame
+            while (k < runFrameCount || entry < end) {
+                int f;
+                if (entry == end || (k < runFrameCount && runFrames[k] <= entryFrame[entry])) {
+                    f = runFrames[k];
+                } else {
+                    f = entryFrame[entry];
+                }
+                if (k < runFrameCount && runFrames[k] == f) {
+                    k++;
+                }
+                Frame frame = frames[f];
+                imageSurface.setColor(frame.getColor());
+                imageSurface.fillRectangle(frame.getLeftBound(), frame.getUpperBound(), frame.getWidth(),
+                        frame.getHeight());
+                int frameEnd = entry;
+                while (frameEnd < end && entryFrame[frameEnd] == f) {
+                    frameEnd++;
+                }
+                ballPainter.paint(frame, entryBall, entry, frameEnd, imageSurface);
+                entry = frameEnd;
+            }
+        }
+        graphics.setClip(null);
+        clearRuns();
+        return true;
+    }
+
+    private void clearRuns() {
+        for (int i = 0; i < dirtyCount; i++) {
+            tileRun[dirtyList[i]] = -1;
+        }
+    }
+
+    // Merges the dirty tiles of every row into runs
+    private void buildRuns() {
+        runCount = 0;
+        for (int row = 0; row < tileRows; row++) {
+            int column = 0;
+            while (column < tileColumns) {
+                if (!dirtyTiles[row * tileColumns + column]) {
+                    column++;
+                    continue;
+                }
+                int start = column;
+                while (column < tileColumns && dirtyTiles[row * tileColumns + column]) {
+                    tileRun[row * tileColumns + column] = runCount;
+                    column++;
+                }
+                runX[runCount] = start * TILE_SIZE;
+                runY[runCount] = row * TILE_SIZE;
+                runWidth[runCount] = (column - start) * TILE_SIZE;
+                runCount++;
+            }
+        }
+    }
+
+    // Goes over the balls in the order of the painter and finds the runs each one touches. The first pass counts the
+    // balls of every run in runStart[r + 1], the second pass places them using runStart[r] as the next free entry of
+    // run r, which leaves the end of run r in runStart[r]
+    private int assignBalls(Frame[] frames, boolean place) {
+        int entries = 0;
+        for (int f = 0; f < frames.length; f++) {
+            int[] boxes = drawnBoxes[f];
+            int[] order = ballPainter.drawOrder(frames[f]);
+            for (int k = 0; k < boxes.length / 4; k++) {
+                int i = order[k];
+                int b = i * 4;
+                if (boxes[b + 2] <= boxes[b] || boxes[b + 3] <= boxes[b + 1]) {
+                    continue;
+                }
+                for (int row = tileRow(boxes[b + 1]); row <= tileRow(boxes[b + 3] - 1); row++) {
+                    int previousRun = -1;
+                    for (int column = tileColumn(boxes[b]); column <= tileColumn(boxes[b + 2] - 1); column++) {
+                        int run = tileRun[row * tileColumns + column];
+                        // the tiles of a run are next to each other, so a run is only counted once per ball
+                        if (run >= 0 && run != previousRun) {
+                            if (place) {
+                                int entry = runStart[run]++;
+                                entryFrame[entry] = f;
+                                entryBall[entry] = i;
+                            } else {
+                                runStart[run + 1]++;
+                            }
+                            entries++;
+                        }
+                        previousRun = run;
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    private int tileColumn(int x) {
+        return Math.min(Math.max(x / TILE_SIZE, 0), tileColumns - 1);
+    }
+
+    private int tileRow(int y) {
+        return Math.min(Math.max(y / TILE_SIZE, 0), tileRows - 1);
+    }
+}
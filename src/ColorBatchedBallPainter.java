@@ -0,0 +1,133 @@
+import biuoop.DrawSurface;
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+/**
+ * A BallPainter that groups the balls of a frame by color and sets the color of the surface once per group,
+ * instead of once per ball.
+ * The grouping is sorted once and cached, and only sorted again when the colors of the frame change. Within a
+ * group the balls keep the order of the frame, but a ball may be stacked above a ball of another color that the
+ * frame draws after it.
+ * With a palette, every color channel is quantized to fewer bits, so similar colors fall into the same group and
+ * are drawn with the color in the middle of their bucket. Random colors then make a few hundred groups at most,
+ * instead of one group per ball.
+ */
+public class ColorBatchedBallPainter implements BallPainter {
+    private static final int CHANNEL_BITS = 8;
+    private int paletteBits;
+    // The grouping of every painted frame, dropped with the frame once nothing else holds it, so the frames of
+    // replaced screens don't stay in memory
+    private Map<Frame, Grouping> groupings = new WeakHashMap<>();
+    // The color of every palette key, created once
+    private Map<Integer, Color> paletteColors = new HashMap<>();
+
+    /**
+     * Constructor for the ColorBatchedBallPainter class, with a quantized palette.
+     *
+     * @param paletteBits the amount of bits kept of every color channel, from 1 (8 colors) to 8 (the exact colors)
+     */
+    public ColorBatchedBallPainter(int paletteBits) {
+        if (paletteBits < 1 || paletteBits > CHANNEL_BITS) {
+            throw new IllegalArgumentException("palette bits must be between 1 and " + CHANNEL_BITS);
+        }
+        this.paletteBits = paletteBits;
+    }
+
+    /**
+     * Constructor for the ColorBatchedBallPainter class, grouping the balls by their exact color.
+     */
+    public ColorBatchedBallPainter() {
+        this(CHANNEL_BITS);
+    }
+
+    /**
+     * Returns the amount of bits kept of every color channel.
+     *
+     * @return the palette bits
+     */
+    public int getPaletteBits() {
+        return paletteBits;
+    }
+
+    @Override
+    public int[] drawOrder(Frame frame) {
+        return grouping(frame).order;
+    }
+
+    @Override
+    public void paint(Frame frame, int[] balls, int from, int to, DrawSurface surface) {
+        BallStore store = frame.getBallStore();
+        int[] keys = grouping(frame).keys;
+        int currentKey = -1;
+        for (int i = from; i < to; i++) {
+            int ball = balls[i];
+            if (keys[ball] != currentKey) {
+                currentKey = keys[ball];
+                surface.setColor(colorOf(store, ball, currentKey));
+            }
+            surface.fillCircle((int) store.getX(ball), (int) store.getY(ball), store.getRadius(ball));
+        }
+    }
+
+    // The cached grouping of a frame, sorted again if the colors of the frame changed
+    private Grouping grouping(Frame frame) {
+        BallStore store = frame.getBallStore();
+        Grouping grouping = groupings.get(frame);
+        if (grouping != null && grouping.colorVersion == store.getColorVersion() && grouping.size == store.size()) {
+            return grouping;
+        }
+        grouping = new Grouping();
+        grouping.colorVersion = store.getColorVersion();
+        grouping.size = store.size();
+        grouping.keys = new int[store.size()];
+        // sort the balls by key and then by index, which keeps the order of the frame within a group
+        long[] sorted = new long[store.size()];
+        for (int i = 0; i < store.size(); i++) {
+            grouping.keys[i] = keyOf(store.getRgb(i));
+            sorted[i] = ((long) grouping.keys[i] << 32) | i;
+        }
+        Arrays.sort(sorted);
+        grouping.order = new int[store.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            grouping.order[i] = (int) sorted[i];
+        }
+        groupings.put(frame, grouping);
+        return grouping;
+    }
+
+    // The palette key of a color, its channels cut to the palette bits
+    private int keyOf(int rgb) {
+        int shift = CHANNEL_BITS - paletteBits;
+        int red = ((rgb >> 16) & 0xFF) >> shift;
+        int green = ((rgb >> 8) & 0xFF) >> shift;
+        int blue = (rgb & 0xFF) >> shift;
+        return (red << (2 * paletteBits)) | (green << paletteBits) | blue;
+    }
+
+    // The color a group is drawn with: the exact color of its ball, or the middle of its palette bucket
+    private Color colorOf(BallStore store, int ball, int key) {
+        if (paletteBits == CHANNEL_BITS) {
+            return store.getColor(ball);
+        }
+        Color color = paletteColors.get(key);
+        if (color == null) {
+            int shift = CHANNEL_BITS - paletteBits;
+            int mask = (1 << paletteBits) - 1;
+            int half = (1 << shift) >> 1;
+            color = new Color((((key >> (2 * paletteBits)) & mask) << shift) | half,
+                    (((key >> paletteBits) & mask) << shift) | half, ((key & mask) << shift) | half);
+            paletteColors.put(key, color);
+        }
+        return color;
+    }
+
+    // The drawing order of a frame and the palette key of each of its balls
+    private static class Grouping {
+        private int colorVersion;
+        private int size;
+        private int[] keys;
+        private int[] order;
+    }
+}
@@ -0,0 +1,28 @@
+import biuoop.DrawSurface;
+/**
+ * A BallPainter that draws the balls in the order of the frame, each one with its own Ball.drawOn.
+ */
+public class DirectBallPainter implements BallPainter {
+    // The identity order, shared by all the frames and grown when a bigger frame is drawn
+    private int[] identity = new int[0];
+
+    @Override
+    public int[] drawOrder(Frame frame) {
+        int size = frame.getBallStore().size();
+        if (identity.length < size) {
+            identity = new int[size];
+            for (int i = 0; i < size; i++) {
+                identity[i] = i;
+            }
+        }
+        return identity;
+    }
+
+    @Override
+    public void paint(Frame frame, int[] balls, int from, int to, DrawSurface surface) {
+        Ball[] ballArr = frame.getBallArr();
+        for (int i = from; i < to; i++) {
+            ballArr[balls[i]].drawOn(surface);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 import java.awt.Color;
 /**
  * Represents a frame with bounds and an array of balls.
+ * The state of the balls is kept in a BallStore owned by the frame, the balls of the frame are views of it.
  */
 public class Frame {
     private int leftBound;
@@ -8,6 +9,7 @@ public class Frame {
     private int upperBound;
     private int lowerBound;
     private Ball[] ballArr;
+    private BallStore ballStore;
     private Color color;
 
     /**
@@ -26,6 +28,30 @@ public class Frame {
         this.upperBound = upperBound;
         this.lowerBound = lowerBound;
         this.ballArr = ballArr;
+        this.ballStore = new BallStore(ballArr.length);
+        for (Ball ball : ballArr) {
+            ball.moveTo(ballStore);
+        }
+        this.color = color;
+    }
+
+    /**
+     * Constructs a frame with the specified bounds around the balls of an existing store. The balls of the frame
+     * are views of the store, created when they are first asked for.
+     *
+     * @param leftBound  the left bound of the frame
+     * @param rightBound the right bound of the frame
+     * @param upperBound the upper bound of the frame
+     * @param lowerBound the lower bound of the frame
+     * @param ballStore  the store that holds the balls of the frame
+     * @param color      the color of the frame
+     */
+    Frame(int leftBound, int rightBound, int upperBound, int lowerBound, BallStore ballStore, Color color) {
+        this.leftBound = leftBound;
+        this.rightBound = rightBound;
+        this.upperBound = upperBound;
+        this.lowerBound = lowerBound;
+        this.ballStore = ballStore;
         this.color = color;
     }
 
@@ -84,9 +110,34 @@ public class Frame {
      * @return the array of balls contained within the frame
      */
     public Ball[] getBallArr() {
+        if (ballArr == null) {
+            // a frame around an existing store creates the views of its balls on first use
+            ballArr = new Ball[ballStore.size()];
+            for (int i = 0; i < ballArr.length; i++) {
+                ballArr[i] = new Ball(ballStore, i);
+            }
+        }
         return ballArr;
     }
 
+    /**
+     * Returns the store that holds the state of the balls contained within the frame.
+     *
+     * @return the store of the balls of the frame
+     */
+    public BallStore getBallStore() {
+        return ballStore;
+    }
+
+    /**
+     * Returns true if no ball of the frame has a velocity, so nothing in the frame moves by itself.
+     *
+     * @return true if the frame is asleep
+     */
+    public boolean isAsleep() {
+        return ballStore.getAwakeCount() == 0;
+    }
+
     /**
      * Returns the color of the frame.
      *
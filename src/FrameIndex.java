@@ -0,0 +1,243 @@
+import java.util.Arrays;
+/**
+ * The FrameIndex class is a quadtree over the rectangles of the frames of a screen, for screens with thousands of
+ * nested and overlapping frames.
+ * Every node covers a quarter of its parent, and every frame is kept in the smallest node that holds its whole
+ * rectangle, so a frame is stored once however big it is. A query only visits the nodes its rectangle or point
+ * falls in, which takes logarithmic time when the frames are small compared to the screen.
+ * The frames are given by their index in the array of the screen, which is also their drawing order. The bounds of
+ * a frame never change, so the index is built once.
+ */
+public class FrameIndex {
+    // The amount of frames a node holds before it is split
+    private static final int NODE_CAPACITY = 8;
+    private static final int MAX_DEPTH = 16;
+    private Frame[] frames;
+    // The rectangle of node n is nodeBounds[4n] .. nodeBounds[4n + 3], as x0, y0, x1, y1 (exclusive)
+    private int[] nodeBounds = new int[4 * 16];
+    // The index of the first of the 4 children of each node, -1 for a leaf
+    private int[] nodeChild = new int[16];
+    // The frames kept in node n are nodeFrames[nodeStart[n]] .. nodeFrames[nodeEnd[n] - 1], the frames of its
+    // children follow them
+    private int[] nodeStart = new int[16];
+    private int[] nodeEnd = new int[16];
+    private int[] nodeFrames;
+    private int nodeCount;
+
+    /**
+     * Constructor for the FrameIndex class. Builds the quadtree over the given frames.
+     *
+     * @param frames the frames to index
+     */
+    public FrameIndex(Frame[] frames) {
+        this.frames = frames;
+        this.nodeFrames = new int[frames.length];
+        int x0 = Integer.MAX_VALUE;
+        int y0 = Integer.MAX_VALUE;
+        int x1 = Integer.MIN_VALUE;
+        int y1 = Integer.MIN_VALUE;
+        for (int f = 0; f < frames.length; f++) {
+            nodeFrames[f] = f;
+            x0 = Math.min(x0, frames[f].getLeftBound());
+            y0 = Math.min(y0, frames[f].getUpperBound());
+            x1 = Math.max(x1, frames[f].getRightBound());
+            y1 = Math.max(y1, frames[f].getLowerBound());
+        }
+        if (frames.length == 0) {
+            x0 = 0;
+            y0 = 0;
+            x1 = 0;
+            y1 = 0;
+        }
+        nodeCount = 1;
+        build(0, x0, y0, x1, y1, 0, frames.length, 0, new int[frames.length]);
+    }
+
+    /**
+     * Returns the amount of indexed frames.
+     *
+     * @return the amount of frames
+     */
+    public int size() {
+        return frames.length;
+    }
+
+    /**
+     * Returns the amount of nodes of the quadtree.
+     *
+     * @return the amount of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Finds the frames whose rectangle overlaps the given rectangle, which are the frames drawn in it.
+     *
+     * @param x0     the left bound of the rectangle
+     * @param y0     the upper bound of the rectangle
+     * @param x1     the right bound of the rectangle, excluded
+     * @param y1     the lower bound of the rectangle, excluded
+     * @param result the array the indexes of the frames are written to in increasing order, as long as the amount
+     *               of frames
+     * @return the amount of frames found
+     */
+    public int query(int x0, int y0, int x1, int y1, int[] result) {
+        if (x1 <= x0 || y1 <= y0) {
+            return 0;
+        }
+        int amount = query(0, x0, y0, x1, y1, result, 0);
+        Arrays.sort(result, 0, amount);
+        return amount;
+    }
+
+    /**
+     * Returns the frame that contains the given point, and is drawn above the others if several frames contain it.
+     * A ball is in the frame that contains its center.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the index of the frame, or -1 if no frame contains the point
+     */
+    public int frameAt(double x, double y) {
+        int found = -1;
+        int node = 0;
+        while (node >= 0) {
+            for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+                Frame frame = frames[nodeFrames[k]];
+                if (nodeFrames[k] > found && x >= frame.getLeftBound() && x <= frame.getRightBound()
+                        && y >= frame.getUpperBound() && y <= frame.getLowerBound()) {
+                    found = nodeFrames[k];
+                }
+            }
+            node = childAt(node, x, y);
+        }
+        return found;
+    }
+
+    // Adds the frames of the node and of its children that overlap the rectangle to the result
+    private int query(int node, int x0, int y0, int x1, int y1, int[] result, int amount) {
+        for (int k = nodeStart[node]; k < nodeEnd[node]; k++) {
+            Frame frame = frames[nodeFrames[k]];
+            if (frame.getLeftBound() < x1 && frame.getRightBound() > x0
+                    && frame.getUpperBound() < y1 && frame.getLowerBound() > y0) {
+                result[amount++] = nodeFrames[k];
+            }
+        }
+        if (nodeChild[node] < 0) {
+            return amount;
+        }
+        for (int c = nodeChild[node]; c < nodeChild[node] + 4; c++) {
+            int b = c * 4;
+            // a frame of a child is inside the rectangle of the child, so a child apart from the query is skipped
+            if (nodeBounds[b] < x1 && nodeBounds[b + 2] > x0 && nodeBounds[b + 1] < y1 && nodeBounds[b + 3] > y0) {
+                amount = query(c, x0, y0, x1, y1, result, amount);
+            }
+        }
+        return amount;
+    }
+
+    // The child of the node whose rectangle holds the point, -1 for a leaf or a point outside the node
+    private int childAt(int node, double x, double y) {
+        int b = node * 4;
+        if (nodeChild[node] < 0 || x < nodeBounds[b] || y < nodeBounds[b + 1] || x > nodeBounds[b + 2]
+                || y > nodeBounds[b + 3]) {
+            return -1;
+        }
+        // the middle lines belong to the quarters after them, like in quarterOf
+        return nodeChild[node] + (x < middle(nodeBounds[b], nodeBounds[b + 2]) ? 0 : 1)
+                + (y < middle(nodeBounds[b + 1], nodeBounds[b + 3]) ? 0 : 2);
+    }
+
+    // Builds the node over the frames nodeFrames[from] .. nodeFrames[to - 1]. The frames that fit in a quarter of the
+    // node are moved to the children, the others stay in the node, placed before the frames of its children
+    private void build(int node, int x0, int y0, int x1, int y1, int from, int to, int depth, int[] quarters) {
+        int b = node * 4;
+        nodeBounds[b] = x0;
+        nodeBounds[b + 1] = y0;
+        nodeBounds[b + 2] = x1;
+        nodeBounds[b + 3] = y1;
+        nodeChild[node] = -1;
+        nodeStart[node] = from;
+        nodeEnd[node] = to;
+        int midX = middle(x0, x1);
+        int midY = middle(y0, y1);
+        if (to - from <= NODE_CAPACITY || depth == MAX_DEPTH || midX == x0 || midY == y0) {
+            return;
+        }
+        // sort the frames by their quarter with a counting sort, the frames that fit in no quarter first
+        int[] counts = new int[6];
+        for (int k = from; k < to; k++) {
+            quarters[k] = quarterOf(frames[nodeFrames[k]], midX, midY);
+            counts[quarters[k] + 2]++;
+        }
+        if (counts[1] == to - from) {
+            // no frame fits in a quarter, splitting wouldn't help
+            return;
+        }
+        for (int q = 1; q < counts.length; q++) {
+            counts[q] += counts[q - 1];
+        }
+        int[] sorted = new int[to - from];
+        int[] sortedQuarters = new int[to - from];
+        for (int k = from; k < to; k++) {
+            int position = counts[quarters[k] + 1]++;
+            sorted[position] = nodeFrames[k];
+            sortedQuarters[position] = quarters[k];
+        }
+        System.arraycopy(sorted, 0, nodeFrames, from, sorted.length);
+        System.arraycopy(sortedQuarters, 0, quarters, from, sortedQuarters.length);
+        int child = nodeCount;
+        nodeCount += 4;
+        ensureNodes(nodeCount);
+        nodeChild[node] = child;
+        int start = from;
+        while (start < to && quarters[start] < 0) {
+            start++;
+        }
+        nodeEnd[node] = start;
+        for (int q = 0; q < 4; q++) {
+            int end = start;
+            while (end < to && quarters[end] == q) {
+                end++;
+            }
+            build(child + q, q % 2 == 0 ? x0 : midX, q < 2 ? y0 : midY, q % 2 == 0 ? midX : x1,
+                    q < 2 ? midY : y1, start, end, depth + 1, quarters);
+            start = end;
+        }
+    }
+
+    // The quarter of the node that holds the whole frame: 0 upper left, 1 upper right, 2 lower left, 3 lower right,
+    // and -1 if the frame crosses a middle line
+    private static int quarterOf(Frame frame, int midX, int midY) {
+        int column;
+        if (frame.getRightBound() < midX) {
+            column = 0;
+        } else if (frame.getLeftBound() >= midX) {
+            column = 1;
+        } else {
+            return -1;
+        }
+        if (frame.getLowerBound() < midY) {
+            return column;
+        } else if (frame.getUpperBound() >= midY) {
+            return column + 2;
+        }
+        return -1;
+    }
+
+    private static int middle(int low, int high) {
+        return (int) (((long) low + high) / 2);
+    }
+
+    private void ensureNodes(int nodes) {
+        if (nodeChild.length >= nodes) {
+            return;
+        }
+        int capacity = Math.max(nodes, nodeChild.length * 2);
+        nodeBounds = Arrays.copyOf(nodeBounds, capacity * 4);
+        nodeChild = Arrays.copyOf(nodeChild, capacity);
+        nodeStart = Arrays.copyOf(nodeStart, capacity);
+        nodeEnd = Arrays.copyOf(nodeEnd, capacity);
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.concurrent.locks.LockSupport;
+/**
+ * The FrameScheduler class paces an animation loop to a target amount of frames per second.
+ * Instead of sleeping a constant time after every frame, it keeps a deadline for every frame and only sleeps what is
+ * left of the frame after the work is done. When the loop falls behind, it asks for a few physics steps in a single
+ * frame (skipping the drawing of the frames in between), up to a limit, and the steps beyond the limit are dropped.
+ */
+public class FrameScheduler {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private long framePeriod;
+    private int maxStepsPerFrame;
+    // The time at which the next frame is due
+    private long nextDeadline;
+    private long frameCount;
+    private long droppedFrames;
+    private long droppedSteps;
+    // The frames counted since the start of the current measurement window
+    private long windowStart;
+    private long windowFrames;
+    private double achievedFps;
+
+    /**
+     * Constructor for the FrameScheduler class.
+     *
+     * @param targetFps        the target amount of frames per second
+     * @param maxStepsPerFrame the maximal amount of physics steps to run in a single frame when behind
+     */
+    public FrameScheduler(double targetFps, int maxStepsPerFrame) {
+        if (targetFps <= 0 || maxStepsPerFrame < 1) {
+            throw new IllegalArgumentException("target fps and max steps per frame must be positive");
+        }
+        this.framePeriod = (long) (NANOS_PER_SECOND / targetFps);
+        this.maxStepsPerFrame = maxStepsPerFrame;
+    }
+
+    /**
+     * Starts the clock of the scheduler, the first frame is due immediately.
+     */
+    public void start() {
+        nextDeadline = System.nanoTime();
+        windowStart = nextDeadline;
+        windowFrames = 0;
+    }
+
+    /**
+     * Starts a frame and returns the amount of physics steps to run in it.
+     * It is a single step when the loop is on time, and more steps when frames were missed.
+     *
+     * @return the amount of physics steps to run in this frame
+     */
+    public int beginFrame() {
+        long behind = System.nanoTime() - nextDeadline;
+        long due = 1 + Math.max(0, behind / framePeriod);
+        int steps = (int) Math.min(due, maxStepsPerFrame);
+        droppedFrames += steps - 1;
+        droppedSteps += due - steps;
+        nextDeadline += due * framePeriod;
+        return steps;
+    }
+
+    /**
+     * Ends a frame, and waits until the next frame is due.
+     */
+    public void endFrame() {
+        frameCount++;
+        windowFrames++;
+        long now = System.nanoTime();
+        if (now - windowStart >= NANOS_PER_SECOND) {
+            achievedFps = windowFrames * (double) NANOS_PER_SECOND / (now - windowStart);
+            windowStart = now;
+            windowFrames = 0;
+        }
+        // parkNanos may return early, so wait in a loop until the deadline
+        while (now < nextDeadline) {
+            LockSupport.parkNanos(nextDeadline - now);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            now = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns the amount of frames per second achieved over the last measured second.
+     *
+     * @return the achieved frames per second
+     */
+    public double getAchievedFps() {
+        return achievedFps;
+    }
+
+    /**
+     * Returns the amount of frames that ended so far.
+     *
+     * @return the amount of frames
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Returns the amount of frames that were not drawn because their physics step ran in a later frame.
+     *
+     * @return the amount of dropped frames
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Returns the amount of physics steps that were dropped because the loop was too far behind.
+     *
+     * @return the amount of dropped steps
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+}
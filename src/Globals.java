@@ -24,6 +24,9 @@ public class Globals {
     // The time in milliseconds to wait between each iteration of the bouncing ball animation loop.
     public static final int SLEEP_TIMER = 40;
 
+    // The maximal amount of physics steps run in a single frame of the animation when it falls behind
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
     // The size of the maximum ball
     public static final int SIZE_BIG_BALL = 50;
 
@@ -0,0 +1,68 @@
+import biuoop.DrawSurface;
+import biuoop.GUI;
+/**
+ * A RenderSink that draws the frames of a screen and their balls on a GUI window.
+ */
+public class GuiRenderSink implements RenderSink {
+    private GUI gui;
+    private BallPainter ballPainter = new DirectBallPainter();
+    // Times the drawing and the showing, null when nothing is timed
+    private AnimationMetrics metrics;
+
+    /**
+     * Constructor for the GuiRenderSink class. Opens a window in the size of the screen.
+     *
+     * @param screen the screen that is drawn
+     */
+    public GuiRenderSink(Screen screen) {
+        this.gui = new GUI(screen.getName(), screen.getRightBound(), screen.getLowerBound());
+    }
+
+    /**
+     * Sets the painter that draws the balls of every frame.
+     *
+     * @param ballPainter the ball painter
+     */
+    public void setBallPainter(BallPainter ballPainter) {
+        this.ballPainter = ballPainter;
+    }
+
+    /**
+     * Sets the metrics that time the drawing of the screen and the showing of the window.
+     *
+     * @param metrics the metrics, or null to time nothing
+     */
+    public void setMetrics(AnimationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Draws the frames of the screen and their balls, and shows them on the window.
+     *
+     * @param screen the screen to draw
+     */
+    @Override
+    public void render(Screen screen) {
+        long start = System.nanoTime();
+        DrawSurface drawSurface = gui.getDrawSurface();
+        for (Frame frame : screen.getFrames()) {
+            drawSurface.setColor(frame.getColor());
+            drawSurface.fillRectangle(frame.getLeftBound(), frame.getUpperBound(),
+                    frame.getWidth(), frame.getHeight());
+            ballPainter.paint(frame, ballPainter.drawOrder(frame), 0, frame.getBallStore().size(), drawSurface);
+        }
+        long drawn = System.nanoTime();
+        gui.show(drawSurface);
+        if (metrics != null) {
+            metrics.recordRender(drawn - start, System.nanoTime() - drawn);
+        }
+    }
+
+    /**
+     * Closes the window.
+     */
+    @Override
+    public void close() {
+        gui.close();
+    }
+}
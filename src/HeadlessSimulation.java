@@ -0,0 +1,114 @@
+import java.awt.Color;
+/**
+ * The HeadlessSimulation class runs the bouncing balls physics without a display, for benchmarks and batch runs.
+ * It fills a single big window frame with balls of random sizes and reports how many ticks per second it ran.
+ * Several screens are run at once on a SceneHost, each with its own balls.
+ */
+public class HeadlessSimulation {
+    private static final int DEFAULT_BALLS_AMOUNT = 1000;
+    private static final long DEFAULT_TICKS = 10000;
+    // The ticks a hosted screen that runs as fast as possible runs before giving its thread to the next screen
+    private static final int HOSTED_TICK_BUDGET = 64;
+
+    /**
+     * The main method that runs the simulation.
+     *
+     * @param args The command line arguments: the amount of balls, the amount of ticks, an optional target amount
+     *             of ticks per second (as fast as possible if missing or 0), an optional seed of the balls, and
+     *             an optional amount of screens run at once
+     */
+    public static void main(String[] args) {
+        int ballsAmount = DEFAULT_BALLS_AMOUNT;
+        long ticks = DEFAULT_TICKS;
+        double ticksPerSecond = 0;
+        int screensAmount = 1;
+        SceneGenerator sceneGenerator;
+        try {
+            if (args.length > 0) {
+                ballsAmount = Integer.parseInt(args[0]);
+            }
+            if (args.length > 1) {
+                ticks = Long.parseLong(args[1]);
+            }
+            if (args.length > 2) {
+                ticksPerSecond = Double.parseDouble(args[2]);
+            }
+            sceneGenerator = args.length > 3 ? new SceneGenerator(Long.parseLong(args[3])) : new SceneGenerator();
+            if (args.length > 4) {
+                screensAmount = Integer.parseInt(args[4]);
+            }
+        } catch (NumberFormatException notNumericError) {
+            System.out.println("Usage: HeadlessSimulation [balls] [ticks] [ticksPerSecond] [seed] [screens]");
+            return;
+        }
+        System.out.println("seed " + sceneGenerator.getSeed());
+        if (screensAmount > 1) {
+            runHosted(sceneGenerator, screensAmount, ballsAmount, ticks, ticksPerSecond);
+            return;
+        }
+        Screen screen = createScreen(sceneGenerator, ballsAmount, "HeadlessSimulation");
+        SimulationLoop simulationLoop = new SimulationLoop(screen, new ScreenMotionManager(screen));
+        AnimationMetrics metrics = new AnimationMetrics(screen.getName());
+        simulationLoop.setMetrics(metrics);
+        long start = System.nanoTime();
+        FrameScheduler frameScheduler = null;
+        if (ticksPerSecond > 0) {
+            frameScheduler = simulationLoop.runAtRate(ticks, ticksPerSecond);
+        } else {
+            simulationLoop.run(ticks);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(ballsAmount + " balls, " + simulationLoop.getTick() + " ticks in " + seconds
+                + " seconds (" + (simulationLoop.getTick() / seconds) + " ticks per second)");
+        if (frameScheduler != null) {
+            System.out.println(frameScheduler.getDroppedSteps() + " ticks were dropped to keep the rate");
+        }
+        System.out.println(metrics.summary());
+    }
+
+    // Runs the screens at once on a SceneHost, and reports how many ticks per second they ran together
+    private static void runHosted(SceneGenerator sceneGenerator, int screensAmount, int ballsAmount, long ticks,
+                                  double ticksPerSecond) {
+        try (SceneHost sceneHost = new SceneHost()) {
+            for (int s = 0; s < screensAmount; s++) {
+                Screen screen = createScreen(sceneGenerator, ballsAmount, "HeadlessSimulation-" + s);
+                HostedScene scene = sceneHost.add(screen.getName(),
+                        new SimulationLoop(screen, new ScreenMotionManager(screen)), ticksPerSecond,
+                        ticksPerSecond > 0 ? Globals.MAX_STEPS_PER_FRAME : HOSTED_TICK_BUDGET);
+                scene.setTickLimit(ticks);
+            }
+            long start = System.nanoTime();
+            sceneHost.startAll();
+            sceneHost.awaitStop(Long.MAX_VALUE);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long totalTicks = 0;
+            long droppedTicks = 0;
+            for (HostedScene scene : sceneHost.getScenes()) {
+                totalTicks += scene.getTick();
+                droppedTicks += scene.getDroppedTicks();
+                if (scene.getFailure() != null) {
+                    System.out.println(scene.getName() + " stopped: " + scene.getFailure());
+                }
+            }
+            System.out.println(screensAmount + " screens of " + ballsAmount + " balls, " + totalTicks + " ticks in "
+                    + seconds + " seconds (" + (totalTicks / seconds) + " ticks per second)");
+            if (ticksPerSecond > 0) {
+                System.out.println(droppedTicks + " ticks were dropped to keep the rate");
+            }
+        } catch (InterruptedException interruptedError) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Returns a screen with a single big window frame filled with balls of random sizes
+    private static Screen createScreen(SceneGenerator sceneGenerator, int ballsAmount, String name) {
+        int[] sizes = new int[ballsAmount];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = sceneGenerator.nextInt(Globals.BOUNCING_BALL_ANIMATION_RADIUS) + 1;
+        }
+        Frame[] frames = new Frame[Globals.SINGLE_FRAME];
+        frames[0] = sceneGenerator.createFrame(sizes, 0, Globals.BIG_WINDOW_WIDTH, 0, Globals.BIG_WINDOW_HEIGHT,
+                Color.white);
+        return new Screen(Globals.BIG_WINDOW_WIDTH, Globals.BIG_WINDOW_HEIGHT, name, frames);
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+/**
+ * The HostedScene class is a simulation run by a SceneHost, and the handle that starts, pauses and stops it.
+ * The scene runs in slices. A slice draws the screen once and runs the ticks that are due, up to the tick budget of
+ * the scene, and then gives its thread back to the host, which runs the slices of the due scenes in turn, so a busy
+ * scene can't keep the others from running. A scene with a target rate is paced like a FrameScheduler paces a loop,
+ * and the ticks beyond the budget are dropped when it falls behind. A scene without a rate runs a whole budget of
+ * ticks in every slice.
+ * Two slices of a scene never run at once, so the simulation loop needs no locking, but every slice may run on
+ * another thread of the host. Once the scene stopped and its last slice ended, the loop is released: its window is
+ * closed and its metrics are unregistered.
+ */
+public class HostedScene {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private String name;
+    private SimulationLoop simulationLoop;
+    private ScheduledExecutorService executor;
+    // The time between two ticks, 0 for a scene that runs as fast as possible
+    private long tickPeriod;
+    private int tickBudget;
+    // The fields below are guarded by the lock of the scene
+    private long tickLimit = Long.MAX_VALUE;
+    private SceneState state = SceneState.NEW;
+    private ScheduledFuture<?> nextSlice;
+    // Every scheduled slice gets a new generation, so a slice that was cancelled too late to keep it from starting
+    // sees that it is stale and does nothing
+    private long generation;
+    private boolean sliceRunning;
+    private boolean released;
+    // The time at which the next tick is due
+    private long nextDeadline;
+    // Read without the lock while the scene runs
+    private volatile long tick;
+    private volatile long slices;
+    private volatile long droppedTicks;
+    private volatile Throwable failure;
+
+    /**
+     * Constructor for the HostedScene class.
+     *
+     * @param name           the name of the scene
+     * @param simulationLoop the loop that moves and draws the screen of the scene
+     * @param executor       the executor of the host that runs the slices
+     * @param ticksPerSecond the target amount of ticks per second, 0 to run as fast as possible
+     * @param tickBudget     the maximal amount of ticks run in a single slice
+     */
+    HostedScene(String name, SimulationLoop simulationLoop, ScheduledExecutorService executor, double ticksPerSecond,
+                int tickBudget) {
+        if (ticksPerSecond < 0 || tickBudget < 1) {
+            throw new IllegalArgumentException("ticks per second can't be negative and the tick budget must be "
+                    + "positive");
+        }
+        this.name = name;
+        this.simulationLoop = simulationLoop;
+        this.executor = executor;
+        this.tickPeriod = ticksPerSecond > 0 ? (long) (NANOS_PER_SECOND / ticksPerSecond) : 0;
+        this.tickBudget = tickBudget;
+    }
+
+    /**
+     * Returns the name of the scene.
+     *
+     * @return the name of the scene
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the lifecycle state of the scene.
+     *
+     * @return the state of the scene
+     */
+    public synchronized SceneState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the amount of ticks the scene has run so far, as of the end of its last slice.
+     *
+     * @return the amount of ticks
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns the amount of slices the scene has run so far.
+     *
+     * @return the amount of slices
+     */
+    public long getSlices() {
+        return slices;
+    }
+
+    /**
+     * Returns the amount of ticks that were dropped because the scene fell behind its rate by more than its budget.
+     *
+     * @return the amount of dropped ticks
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Returns the exception or the error thrown by a tick of the scene, which stopped it.
+     *
+     * @return the failure of the scene, or null if it didn't fail
+     */
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    /**
+     * Sets the amount of ticks after which the scene stops by itself.
+     *
+     * @param tickLimit the amount of ticks to run, Long.MAX_VALUE to run until the scene is stopped
+     */
+    public synchronized void setTickLimit(long tickLimit) {
+        this.tickLimit = tickLimit;
+    }
+
+    /**
+     * Starts running the scene on the threads of the host. A scene is started once.
+     */
+    public synchronized void start() {
+        if (state != SceneState.NEW) {
+            throw new IllegalStateException(name + " was already started");
+        }
+        state = SceneState.RUNNING;
+        nextDeadline = System.nanoTime();
+        scheduleSlice(0);
+    }
+
+    /**
+     * Pauses the scene. A slice that is running is finished, and no slice runs until the scene is resumed.
+     */
+    public synchronized void pause() {
+        if (state == SceneState.RUNNING) {
+            state = SceneState.PAUSED;
+            cancelSlice();
+        }
+    }
+
+    /**
+     * Resumes a paused scene. The time it was paused isn't caught up.
+     */
+    public synchronized void resume() {
+        if (state != SceneState.PAUSED) {
+            return;
+        }
+        state = SceneState.RUNNING;
+        nextDeadline = System.nanoTime();
+        // a slice that is still running schedules the next slice when it ends
+        if (!sliceRunning) {
+            scheduleSlice(0);
+        }
+    }
+
+    /**
+     * Stops the scene for good and releases its loop. A slice that is running is finished first, awaitStop waits
+     * for it.
+     */
+    public synchronized void stop() {
+        if (state != SceneState.STOPPED) {
+            state = SceneState.STOPPED;
+            cancelSlice();
+            notifyAll();
+        }
+        releaseIfIdle();
+    }
+
+    /**
+     * Waits until the scene is stopped and its last slice has ended.
+     *
+     * @param timeoutMillis the maximal time to wait in milliseconds
+     * @return true if the scene stopped, false if the time ran out first
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized boolean awaitStop(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (state != SceneState.STOPPED || sliceRunning) {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (left <= 0) {
+                return false;
+            }
+            wait(left);
+        }
+        return true;
+    }
+
+    // Runs a slice of the given generation: the ticks that are due, up to the budget, then schedules the next slice
+    private void runSlice(long sliceGeneration) {
+        int steps;
+        synchronized (this) {
+            if (sliceGeneration != generation || state != SceneState.RUNNING) {
+                return;
+            }
+            steps = dueTicks();
+            if (steps == 0) {
+                stop();
+                return;
+            }
+            sliceRunning = true;
+        }
+        Throwable tickError = null;
+        try {
+            simulationLoop.runFrame(steps);
+        } catch (Throwable error) {
+            // errors are kept too, a slice that ends without ending the scene would leave it running forever
+            tickError = error;
+        } finally {
+            endSlice(tickError);
+        }
+    }
+
+    // Ends a slice, with the throwable that ended it or null, and schedules the next slice if the scene goes on
+    private synchronized void endSlice(Throwable tickError) {
+        sliceRunning = false;
+        tick = simulationLoop.getTick();
+        slices++;
+        try {
+            if (tickError != null) {
+                failure = tickError;
+                stop();
+            } else if (tick >= tickLimit) {
+                stop();
+            } else if (state == SceneState.RUNNING) {
+                scheduleSlice(tickPeriod == 0 ? 0 : Math.max(0, nextDeadline - System.nanoTime()));
+            }
+        } catch (RejectedExecutionException closedError) {
+            // the host was shut down under the scene
+            stop();
+        } finally {
+            // a scene stopped while the slice ran is released now that the slice ended
+            releaseIfIdle();
+            notifyAll();
+        }
+    }
+
+    // Returns the amount of ticks to run in the next slice, and moves the deadline past them
+    private int dueTicks() {
+        long due = tickBudget;
+        if (tickPeriod > 0) {
+            long behind = System.nanoTime() - nextDeadline;
+            due = 1 + Math.max(0, behind / tickPeriod);
+            nextDeadline += due * tickPeriod;
+            droppedTicks += Math.max(0, due - tickBudget);
+        }
+        return (int) Math.max(0, Math.min(Math.min(due, tickBudget), tickLimit - simulationLoop.getTick()));
+    }
+
+    // Schedules the next slice after the given delay in nanoseconds. Slices due at the same time run in the order
+    // they were scheduled, so the scenes that run as fast as possible take turns
+    private void scheduleSlice(long delay) {
+        long sliceGeneration = ++generation;
+        nextSlice = executor.schedule(() -> runSlice(sliceGeneration), delay, TimeUnit.NANOSECONDS);
+    }
+
+    // Releases the loop once the scene is stopped and no slice of it runs anymore
+    private void releaseIfIdle() {
+        if (state == SceneState.STOPPED && !sliceRunning && !released) {
+            released = true;
+            simulationLoop.release();
+        }
+    }
+
+    private void cancelSlice() {
+        generation++;
+        if (nextSlice != null) {
+            nextSlice.cancel(false);
+            nextSlice = null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+import biuoop.DrawSurface;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Polygon;
+/**
+ * A DrawSurface that draws directly with a Graphics, usually the graphics of an off-screen image.
+ * The shapes are drawn the same way the surfaces of a GUI draw them, so code written against DrawSurface draws the
+ * same pixels on an image.
+ */
+public class ImageDrawSurface implements DrawSurface {
+    private Graphics graphics;
+    private int width;
+    private int height;
+
+    /**
+     * Constructor for the ImageDrawSurface class.
+     *
+     * @param graphics the graphics to draw with
+     * @param width    the width of the surface
+     * @param height   the height of the surface
+     */
+    public ImageDrawSurface(Graphics graphics, int width, int height) {
+        this.graphics = graphics;
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void setColor(Color color) {
+        graphics.setColor(color);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        graphics.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        graphics.drawOval(x, y, width, height);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        graphics.fillOval(x, y, width, height);
+    }
+
+    @Override
+    public void drawRectangle(int x, int y, int width, int height) {
+        graphics.drawRect(x, y, width, height);
+    }
+
+    @Override
+    public void fillRectangle(int x, int y, int width, int height) {
+        graphics.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawImage(int x, int y, Image image) {
+        graphics.drawImage(image, x, y, null);
+    }
+
+    @Override
+    public void drawCircle(int x, int y, int radius) {
+        graphics.drawOval(x - radius, y - radius, radius * 2, radius * 2);
+    }
+
+    @Override
+    public void fillCircle(int x, int y, int radius) {
+        graphics.fillOval(x - radius, y - radius, radius * 2, radius * 2);
+    }
+
+    @Override
+    public void drawText(int x, int y, String text, int fontSize) {
+        Font font = graphics.getFont();
+        graphics.setFont(new Font(font.getFontName(), font.getStyle(), fontSize));
+        graphics.drawString(text, x, y);
+    }
+
+    @Override
+    public void drawPolygon(Polygon polygon) {
+        graphics.drawPolygon(polygon);
+    }
+
+    @Override
+    public void fillPolygon(Polygon polygon) {
+        graphics.fillPolygon(polygon);
+    }
+}
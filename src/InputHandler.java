@@ -1,8 +1,26 @@
-import java.util.Random;
 /**
  * A class for handling input operations and data validation.
  */
 public class InputHandler {
+    private SceneGenerator sceneGenerator;
+
+    /**
+     * Constructor for the InputHandler class, with a generator seeded differently on every run.
+     */
+    public InputHandler() {
+        this(new SceneGenerator());
+    }
+
+    /**
+     * Constructor for the InputHandler class, the random values that replace invalid input come from the given
+     * generator.
+     *
+     * @param sceneGenerator the generator of the random values
+     */
+    public InputHandler(SceneGenerator sceneGenerator) {
+        this.sceneGenerator = sceneGenerator;
+    }
+
     /**
      * Checks if a coordinate value is within the specified range.
      *
@@ -87,7 +105,6 @@ public class InputHandler {
      */
     public double[] getDoubleArrSizes(String[] args, int xMin, int xMax, int yMin, int yMax) {
         double[] doubleValidInput = new double[Globals.VALID_LENGTH];
-        Random rand = new Random();
 
         if (args.length < Globals.VALID_LENGTH) {
             int diff = Globals.VALID_LENGTH - args.length;
@@ -95,7 +112,7 @@ public class InputHandler {
             System.arraycopy(args, 0, tempArgs, 0, args.length);
             System.out.println("Missing " + diff + " arguments, Instead random values were generated");
             for (int i = Globals.VALID_LENGTH - 1; i >= Globals.VALID_LENGTH - diff; i--) {
-                tempArgs[i] = String.valueOf(rand.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
+                tempArgs[i] = String.valueOf(sceneGenerator.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
             }
             args = tempArgs;
         } else if (args.length > Globals.VALID_LENGTH) {
@@ -113,28 +130,28 @@ public class InputHandler {
                 } else if (args[i].length() > 1) {
                     System.out.println(args[i] + " is a string not a double. Instead a random value was generated");
                 }
-                args[i] = String.valueOf(rand.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
+                args[i] = String.valueOf(sceneGenerator.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
             }
         }
         if (coordinateNotInRange(Double.parseDouble(args[0]), xMin, xMax)) {
             System.out.println(args[0] + " is out of valid screen size. Instead a random value was generated");
-            args[0] = String.valueOf(rand.nextDouble() * ((xMax - Globals.BOUNCING_BALL_ANIMATION_RADIUS)
+            args[0] = String.valueOf(sceneGenerator.nextDouble() * ((xMax - Globals.BOUNCING_BALL_ANIMATION_RADIUS)
                     - (xMin + Globals.BOUNCING_BALL_ANIMATION_RADIUS))
                     + (xMin + Globals.BOUNCING_BALL_ANIMATION_RADIUS));
         }
         if (coordinateNotInRange(Double.parseDouble(args[1]), yMin, yMax)) {
             System.out.println(args[1] + " is out of valid screen size. Instead a random value was generated");
-            args[1] = String.valueOf(rand.nextDouble() * ((xMax - Globals.BOUNCING_BALL_ANIMATION_RADIUS)
+            args[1] = String.valueOf(sceneGenerator.nextDouble() * ((xMax - Globals.BOUNCING_BALL_ANIMATION_RADIUS)
                     - (xMin + Globals.BOUNCING_BALL_ANIMATION_RADIUS))
                     + (xMin + Globals.BOUNCING_BALL_ANIMATION_RADIUS));
         }
         if (!velocityInRange(Double.parseDouble(args[2]))) {
             System.out.println(args[2] + " is out of valid velocity speed. Instead a random value was generated");
-            args[2] = String.valueOf(rand.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
+            args[2] = String.valueOf(sceneGenerator.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
         }
         if (!velocityInRange(Double.parseDouble(args[3]))) {
             System.out.println(args[3] + " is out of valid velocity speed. Instead a random value was generated");
-            args[3] = String.valueOf(rand.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
+            args[3] = String.valueOf(sceneGenerator.nextDouble() * (0.2) * Globals.MAX_DX_DY + 1);
         }
         for (int i = 0; i < doubleValidInput.length; i++) {
             doubleValidInput[i] = Double.parseDouble(args[i]);
@@ -0,0 +1,9 @@
+/**
+ * The IntersectionEngine enum determines how Line intersects two lines given by their end points.
+ */
+public enum IntersectionEngine {
+    // Intersects the slope and y-intercept equations of the lines, comparing coordinates up to Globals.THRESHOLD
+    SLOPE_INTERCEPT,
+    // Uses the signs of cross products (OrientationKernel), which are exact and don't divide by the slope
+    ORIENTATION
+}
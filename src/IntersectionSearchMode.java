@@ -0,0 +1,9 @@
+/**
+ * The IntersectionSearchMode enum determines how SegmentIntersector finds the intersecting pairs of lines.
+ */
+public enum IntersectionSearchMode {
+    // Sweeps a vertical line across the plane and only compares lines that are neighbours along it
+    SWEEP_LINE,
+    // Compares every pair of lines, used to validate the sweep line
+    BRUTE_FORCE
+}
@@ -12,6 +12,11 @@ public class Line {
     private double xVerticalEquation; // the x vertical equation of the line if vertical to x-axis(x=a)
     private boolean isVertical = false; // a flag that determines if the line is vertical to x-axis
     private boolean isPoint = false; // a flag that determines if the line is a point(start=end)
+    // the bounding box of the line, infinite for a line given by its slope and y-intercept
+    private double minX = Double.NEGATIVE_INFINITY;
+    private double maxX = Double.POSITIVE_INFINITY;
+    private double minY = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.POSITIVE_INFINITY;
 
     /**
      * Constructor for the Line class.
@@ -22,6 +27,7 @@ public class Line {
     public Line(Point start, Point end) {
         this.start = start;
         this.end = end;
+        updateBounds();
         if (start.equals(end)) { // in case the start = end => it's a point
             isPoint = true;
         } else if (doubleCompare(start.getX(), end.getX())) { // in case the line is vertical to x-axis
@@ -138,6 +144,7 @@ public class Line {
      */
     public void setStart(Point start) {
         this.start = start;
+        updateBounds();
     }
 
     /**
@@ -147,6 +154,43 @@ public class Line {
      */
     public void setEnd(Point end) {
         this.end = end;
+        updateBounds();
+    }
+
+    /**
+     * Returns the smallest x coordinate of the line.
+     *
+     * @return the left side of the bounding box of the line
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    /**
+     * Returns the biggest x coordinate of the line.
+     *
+     * @return the right side of the bounding box of the line
+     */
+    public double getMaxX() {
+        return maxX;
+    }
+
+    /**
+     * Returns the smallest y coordinate of the line.
+     *
+     * @return the upper side of the bounding box of the line
+     */
+    public double getMinY() {
+        return minY;
+    }
+
+    /**
+     * Returns the biggest y coordinate of the line.
+     *
+     * @return the lower side of the bounding box of the line
+     */
+    public double getMaxY() {
+        return maxY;
     }
 
     /**
@@ -179,7 +223,7 @@ public class Line {
      * @return the length of the line
      */
     public double length() {
-        return start.distance(end);
+        return Math.sqrt(lengthSq());
     }
 
     /**
@@ -203,7 +247,7 @@ public class Line {
         if (otherLine == null) {
             return null;
         }
-        if (length() < otherLine.length()) {
+        if (lengthSq() < otherLine.lengthSq()) {
             return this;
         } else {
             return otherLine;
@@ -220,7 +264,7 @@ public class Line {
         if (otherLine == null) {
             return null;
         }
-        if (length() > otherLine.length()) {
+        if (lengthSq() > otherLine.lengthSq()) {
             return this;
         } else {
             return otherLine;
@@ -257,9 +301,27 @@ public class Line {
      * @return the intersection point if the lines intersect, and null otherwise
      */
     public Point intersectionWith(Line otherLine) {
-        if (otherLine == null) {
+        return intersectionWith(otherLine, IntersectionEngine.SLOPE_INTERCEPT);
+    }
+
+    /**
+     * Returns the intersection point if this line intersects with another line, and null otherwise, computed by the
+     * given engine. ORIENTATION decides exactly, without the threshold, and stays stable for near-vertical lines.
+     *
+     * @param otherLine the other line to check for intersection with
+     * @param engine    the way the lines are intersected when both are given by their end points
+     * @return the intersection point if the lines intersect, and null otherwise
+     */
+    public Point intersectionWith(Line otherLine, IntersectionEngine engine) {
+        // lines whose bounding boxes are apart can't intersect
+        if (otherLine == null
+                || boxesApart(otherLine.minX, otherLine.maxX, otherLine.minY, otherLine.maxY)) {
             return null;
         }
+        if (engine == IntersectionEngine.ORIENTATION && hasEndPoints() && otherLine.hasEndPoints()) {
+            return OrientationKernel.intersection(start.getX(), start.getY(), end.getX(), end.getY(),
+                    otherLine.start.getX(), otherLine.start.getY(), otherLine.end.getX(), otherLine.end.getY());
+        }
         // in case it's a point - check intersection of point and line
         if (isPoint) {
             if (inRange(otherLine, start)) {
@@ -319,35 +381,105 @@ public class Line {
      * @return true if the lines intersect, false otherwise
      */
     public boolean isIntersecting(Line otherLine) {
+        return isIntersecting(otherLine, IntersectionEngine.SLOPE_INTERCEPT);
+    }
+
+    /**
+     * Checks if line intersects with another line, using the given engine.
+     *
+     * @param otherLine the other line to check for intersection with
+     * @param engine    the way the lines are intersected
+     * @return true if the lines intersect, false otherwise
+     */
+    public boolean isIntersecting(Line otherLine, IntersectionEngine engine) {
         if (otherLine == null) {
             return false;
         }
+        return intersects(otherLine.start.getX(), otherLine.start.getY(), otherLine.end.getX(), otherLine.end.getY(),
+                engine);
+    }
+
+    /**
+     * Checks if the line intersects with the line between the two given points, without creating a line or points.
+     * The answer is the same as the one of isIntersecting for a line with these points.
+     *
+     * @param x1 the x coordinate of the starting point of the other line
+     * @param y1 the y coordinate of the starting point of the other line
+     * @param x2 the x coordinate of the end point of the other line
+     * @param y2 the y coordinate of the end point of the other line
+     * @return true if the lines intersect, false otherwise
+     */
+    public boolean intersects(double x1, double y1, double x2, double y2) {
+        return intersects(x1, y1, x2, y2, IntersectionEngine.SLOPE_INTERCEPT);
+    }
+
+    /**
+     * Checks if the line intersects with the line between the two given points like intersects, using the given
+     * engine.
+     *
+     * @param x1     the x coordinate of the starting point of the other line
+     * @param y1     the y coordinate of the starting point of the other line
+     * @param x2     the x coordinate of the end point of the other line
+     * @param y2     the y coordinate of the end point of the other line
+     * @param engine the way the lines are intersected
+     * @return true if the lines intersect, false otherwise
+     */
+    public boolean intersects(double x1, double y1, double x2, double y2, IntersectionEngine engine) {
+        double otherMinX = Math.min(x1, x2);
+        double otherMaxX = Math.max(x1, x2);
+        double otherMinY = Math.min(y1, y2);
+        double otherMaxY = Math.max(y1, y2);
+        if (boxesApart(otherMinX, otherMaxX, otherMinY, otherMaxY)) {
+            return false;
+        }
+        if (engine == IntersectionEngine.ORIENTATION && hasEndPoints()) {
+            return OrientationKernel.intersects(start.getX(), start.getY(), end.getX(), end.getY(), x1, y1, x2, y2);
+        }
+        // the properties the other line would get from the constructor
+        boolean otherIsPoint = doubleCompare(x1, x2) && doubleCompare(y1, y2);
+        boolean otherIsVertical = !otherIsPoint && doubleCompare(x1, x2);
+        double otherM = 0;
+        double otherB = 0;
+        if (!otherIsPoint && !otherIsVertical) {
+            otherM = (y2 - y1) / (x2 - x1);
+            otherB = y1 - (otherM * x1);
+        }
         if (isPoint) {
             // in case it's a point - check if point is in range of other line
-            return inRange(otherLine, start);
-        } else if (isVertical && otherLine.getIsVertical()
-                && !doubleCompare(xVerticalEquation, otherLine.getXVerticalEquation())) {
+            return inBox(start.getX(), start.getY(), otherMinX, otherMaxX, otherMinY, otherMaxY);
+        } else if (isVertical && otherIsVertical && !doubleCompare(xVerticalEquation, x1)) {
             // lines are vertical with different x equation
             return false;
-        } else if (isVertical && !otherLine.getIsVertical() && verticalIntersection(otherLine, this) != null) {
+        } else if (isVertical && !otherIsVertical) {
             // one is vertical
-            return true;
-        } else if (!isVertical && otherLine.getIsVertical()
-                && verticalIntersection(this, otherLine) != null) { // one is vertical
-            return true;
-        } else {
-            // the line has a slope(m) and a y-intercept(b)
-            if (doubleCompare(m, otherLine.getM()) && !doubleCompare(b, otherLine.getB())) { // parallel lines
+            double y = otherM * xVerticalEquation + otherB;
+            if (inBox(xVerticalEquation, y, otherMinX, otherMaxX, otherMinY, otherMaxY)
+                    && inBox(xVerticalEquation, y, minX, maxX, minY, maxY)) {
+                return true;
+            }
+        } else if (!isVertical && otherIsVertical) {
+            // one is vertical
+            double y = m * x1 + b;
+            if (inBox(x1, y, minX, maxX, minY, maxY) && inBox(x1, y, otherMinX, otherMaxX, otherMinY, otherMaxY)) {
+                return true;
+            }
+        }
+        // the line has a slope(m) and a y-intercept(b)
+        if (doubleCompare(m, otherM) && !doubleCompare(b, otherB)) { // parallel lines
+            return false;
+        } else if (!doubleCompare(m, otherM) && !doubleCompare(b, otherB)) { // intersecting lines
+            if (isVertical || otherIsVertical) {
+                // the intersection with the vertical line was already checked
                 return false;
-            } else {
-                if (!doubleCompare(m, otherLine.getM()) && !doubleCompare(b, otherLine.getB())) { // intersecting lines
-                    return intersectionWith(otherLine) != null;
-                }
             }
+            double x = (b - otherB) / (otherM - m);
+            double y = m * x + b;
+            return inBox(x, y, minX, maxX, minY, maxY) && inBox(x, y, otherMinX, otherMaxX, otherMinY, otherMaxY);
         }
         // check if point is in range of the other line in case that non intersection was found
-        return inRange(otherLine, start) || inRange(otherLine, end)
-                || inRange(this, otherLine.start) || inRange(this, otherLine.end);
+        return inBox(start.getX(), start.getY(), otherMinX, otherMaxX, otherMinY, otherMaxY)
+                || inBox(end.getX(), end.getY(), otherMinX, otherMaxX, otherMinY, otherMaxY)
+                || inBox(x1, y1, minX, maxX, minY, maxY) || inBox(x2, y2, minX, maxX, minY, maxY);
     }
 
     /**
@@ -358,13 +490,9 @@ public class Line {
      * @return the intersection point, or null if the lines don't intersect
      */
     public Point verticalIntersection(Line line, Line vertical) {
-        double y = line.getM() * vertical.getXVerticalEquation() + line.getB();
-        Point intersection = new Point(vertical.getXVerticalEquation(), y);
-        if (inRange(line, intersection) && inRange(vertical, intersection)) {
-            return intersection;
-        } else {
-            return null;
-        }
+        double x = vertical.getXVerticalEquation();
+        double y = line.getM() * x + line.getB();
+        return intersectionInRange(x, y, line, vertical);
     }
 
     /**
@@ -377,47 +505,67 @@ public class Line {
     public Point nonVerticalIntersection(Line line1, Line line2) {
         double x = (line1.getB() - line2.getB()) / (line2.getM() - line1.getM());
         double y = line1.getM() * x + line1.getB();
-        Point intersection = new Point(x, y);
-        if (inRange(line1, intersection) && inRange(line2, intersection)) {
-            return intersection;
-        } else {
-            return null;
-        }
+        return intersectionInRange(x, y, line1, line2);
     }
 
     /**
      * Checks if a point is in range of a line,
-     * by the x and y coordinates of the starting and ending points of the line.
+     * by the bounding box of the starting and ending points of the line.
      *
      * @param line  the line to check against
      * @param point the point to check
      * @return true if the point is in range of the line, false otherwise
      */
     public boolean inRange(Line line, Point point) {
-        // checks all the possibles combinations
-        if ((point.getX() > line.getStart().getX() || doubleCompare(point.getX(), line.getStart().getX()))
-                && (point.getX() < line.getEnd().getX() || doubleCompare(point.getX(), line.getEnd().getX()))
-                && (point.getY() > line.getStart().getY() || doubleCompare(point.getY(), line.getStart().getY()))
-                && (point.getY() < line.getEnd().getY() || doubleCompare(point.getY(), line.getEnd().getY()))) {
-            return true;
-        } else if ((point.getX() > line.getEnd().getX() || doubleCompare(point.getX(), line.getEnd().getX()))
-                && (point.getX() < line.getStart().getX() || doubleCompare(point.getX(), line.getStart().getX()))
-                && (point.getY() > line.getEnd().getY() || doubleCompare(point.getY(), line.getEnd().getY()))
-                && (point.getY() < line.getStart().getY() || doubleCompare(point.getY(), line.getStart().getY()))) {
-            return true;
-        } else if ((point.getX() > line.getStart().getX() || doubleCompare(point.getX(), line.getStart().getX()))
-                && (point.getX() < line.getEnd().getX() || doubleCompare(point.getX(), line.getEnd().getX()))
-                && (point.getY() < line.getStart().getY() || doubleCompare(point.getY(), line.getStart().getY()))
-                && (point.getY() > line.getEnd().getY() || doubleCompare(point.getY(), line.getEnd().getY()))) {
-            return true;
-        } else {
-            return ((point.getX() > line.getEnd().getX() || doubleCompare(point.getX(), line.getEnd().getX()))
-                    && (point.getX() < line.getStart().getX() || doubleCompare(point.getX(), line.getStart().getX()))
-                    && (point.getY() < line.getEnd().getY() || doubleCompare(point.getY(), line.getEnd().getY()))
-                    && (point.getY() > line.getStart().getY() || doubleCompare(point.getY(), line.getStart().getY())));
+        return inBox(point.getX(), point.getY(), line.minX, line.maxX, line.minY, line.maxY);
+    }
+
+    // The point if it is in range of both lines, and null otherwise. The point is created only when it is returned
+    private static Point intersectionInRange(double x, double y, Line line1, Line line2) {
+        if (line1.inBox(x, y, line1.minX, line1.maxX, line1.minY, line1.maxY)
+                && line2.inBox(x, y, line2.minX, line2.maxX, line2.minY, line2.maxY)) {
+            return new Point(x, y);
         }
+        return null;
     }
 
+    // The squared length of the line, which orders lines by length without a square root
+    private double lengthSq() {
+        return Point.distanceSq(start.getX(), start.getY(), end.getX(), end.getY());
+    }
+
+    // Checks if the line is given by its end points, and not only by a slope and y-intercept
+    private boolean hasEndPoints() {
+        return start != null && end != null;
+    }
+
+    // Keeps the bounding box in sync with the start and end points
+    private void updateBounds() {
+        if (start == null || end == null) {
+            minX = Double.NEGATIVE_INFINITY;
+            maxX = Double.POSITIVE_INFINITY;
+            minY = Double.NEGATIVE_INFINITY;
+            maxY = Double.POSITIVE_INFINITY;
+            return;
+        }
+        minX = Math.min(start.getX(), end.getX());
+        maxX = Math.max(start.getX(), end.getX());
+        minY = Math.min(start.getY(), end.getY());
+        maxY = Math.max(start.getY(), end.getY());
+    }
+
+    // Checks if a point is in a bounding box, up to the threshold on each side
+    private boolean inBox(double x, double y, double boxMinX, double boxMaxX, double boxMinY, double boxMaxY) {
+        return (x > boxMinX || doubleCompare(x, boxMinX)) && (x < boxMaxX || doubleCompare(x, boxMaxX))
+                && (y > boxMinY || doubleCompare(y, boxMinY)) && (y < boxMaxY || doubleCompare(y, boxMaxY));
+    }
+
+    // Checks if the bounding box of the line is apart from another bounding box. An intersection point is within
+    // the threshold of both boxes, so only boxes more than twice the threshold apart are rejected
+    private boolean boxesApart(double otherMinX, double otherMaxX, double otherMinY, double otherMaxY) {
+        double gap = 2 * Globals.THRESHOLD;
+        return otherMinX - maxX > gap || minX - otherMaxX > gap || otherMinY - maxY > gap || minY - otherMaxY > gap;
+    }
 
     // Compares two double values for equality within a threshold.
     private boolean doubleCompare(double num1, double num2) {
@@ -1,11 +1,28 @@
-import java.awt.Color;
-import java.util.Random;
 /**
  * MultipleBouncingBallsAnimation class creates an animation of multiple balls bouncing inside a window.
  * It creates an array of balls, each with random position, velocity and color.
  * its gets its sizes from the commandLine.
  */
 public class MultipleBouncingBallsAnimation {
+    private SceneGenerator sceneGenerator;
+
+    /**
+     * Constructor for the MultipleBouncingBallsAnimation class, with a generator seeded differently on every run.
+     */
+    public MultipleBouncingBallsAnimation() {
+        this(new SceneGenerator());
+    }
+
+    /**
+     * Constructor for the MultipleBouncingBallsAnimation class, the balls are generated by the given generator, so
+     * a generator with a fixed seed gives the same balls on every run.
+     *
+     * @param sceneGenerator the generator of the random balls
+     */
+    public MultipleBouncingBallsAnimation(SceneGenerator sceneGenerator) {
+        this.sceneGenerator = sceneGenerator;
+    }
+
     /**
      * Creates an array of balls with the specified sizes and colors within the limits.
      *
@@ -17,30 +34,7 @@ public class MultipleBouncingBallsAnimation {
      * @return the ballArr
      */
     public Ball[] createBallArr(int[] sizes, int xMin, int xMax, int yMin, int yMax) {
-        Ball[] ballArr = new Ball[sizes.length];
-        Random rand = new Random();
-        double xCenter, yCenter;
-        int speed, angel, redElementRandom, blueElementRandom, greenElementRadom;
-        Velocity velocity;
-        Point center;
-
-        for (int i = 0; i < ballArr.length; i++) {
-            // generate random x and y coordinates within the given range.
-            xCenter = rand.nextDouble() * ((xMax - sizes[i]) - (xMin + sizes[i])) + (xMin + sizes[i]);
-            yCenter = rand.nextDouble() * ((yMax - sizes[i]) - (yMin + sizes[i])) + (yMin + sizes[i]);
-            // generate random angle and color
-            angel = rand.nextInt(Globals.MAX_ANGEL) + 1;
-            redElementRandom = rand.nextInt(Globals.COLOR_BOUND);
-            blueElementRandom = rand.nextInt(Globals.COLOR_BOUND);
-            greenElementRadom = rand.nextInt(Globals.COLOR_BOUND);
-            center = new Point(xCenter, yCenter);
-            ballArr[i] = new Ball(center, sizes[i], new Color(redElementRandom, blueElementRandom, greenElementRadom));
-            speed = ballArr[i].getSpeed(sizes[i]);
-            velocity = Velocity.fromAngleAndSpeed(angel, speed);
-            // create ball object
-            ballArr[i].setVelocity(velocity);
-        }
-        return ballArr;
+        return sceneGenerator.createBallArr(sizes, xMin, xMax, yMin, yMax);
     }
 
     /**
@@ -49,14 +43,14 @@ public class MultipleBouncingBallsAnimation {
      * @param args The command line arguments, that represent the sizes of the ballArr
      */
     public static void main(String[] args) {
-        MultipleBouncingBallsAnimation artGenerator = new MultipleBouncingBallsAnimation();
-        InputHandler inputHandler = new InputHandler();
+        SceneGenerator sceneGenerator = new SceneGenerator();
+        MultipleBouncingBallsAnimation artGenerator = new MultipleBouncingBallsAnimation(sceneGenerator);
+        InputHandler inputHandler = new InputHandler(sceneGenerator);
         int[] validSizes;
-        Random rand = new Random();
         if (args.length == 0) {
             System.out.println("Error: No input was received. Instead a random value was generated");
             validSizes = new int[1];
-            validSizes[0] = rand.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
+            validSizes[0] = sceneGenerator.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
         } else {
             validSizes = inputHandler.getIntArrSizes(args, 0, args.length,
                     Globals.SMALL_WINDOW_START, Globals.SMALL_WINDOW_END,
@@ -65,7 +59,7 @@ public class MultipleBouncingBallsAnimation {
             if (validSizes.length == 0) {
                 System.out.println("Error: No input was received. Instead a random value was generated");
                 validSizes = new int[1];
-                validSizes[0] = rand.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
+                validSizes[0] = sceneGenerator.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
             }
         }
         Ball[] ballArr = artGenerator.createBallArr(validSizes, Globals.SMALL_WINDOW_START,
@@ -1,5 +1,4 @@
 import java.awt.Color;
-import java.util.Random;
 /**
  * The MultipleFramesBouncingBallsAnimation class creates two frames,
  * fills them with gray and yellow color frames,
@@ -13,18 +12,18 @@ public class MultipleFramesBouncingBallsAnimation {
      * @param args The command line arguments, that represent the sizes of the ballArr
      */
     public static void main(String[] args) {
-        MultipleBouncingBallsAnimation frameGenerator = new MultipleBouncingBallsAnimation();
-        InputHandler inputHandler = new InputHandler();
-        Random rand = new Random();
+        SceneGenerator sceneGenerator = new SceneGenerator();
+        MultipleBouncingBallsAnimation frameGenerator = new MultipleBouncingBallsAnimation(sceneGenerator);
+        InputHandler inputHandler = new InputHandler(sceneGenerator);
         int[] grayFrameSize, yellowFrameSize;
         Screen screen;
         Frame[] frames = new Frame[Globals.FRAMES_AMOUNT];
         if (args.length == 0) {
             System.out.println("Error: No input was received. Instead a random value was generated");
             grayFrameSize = new int[1];
-            grayFrameSize[0] = rand.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
+            grayFrameSize[0] = sceneGenerator.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
             yellowFrameSize = new int[1];
-            yellowFrameSize[0] = rand.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
+            yellowFrameSize[0] = sceneGenerator.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
         } else {
             grayFrameSize = inputHandler.getIntArrSizes(args, 0, args.length / 2,
                     Globals.GREY_BALL_MINIMUM, Globals.GREY_BALL_MAXIMUM,
@@ -37,9 +36,9 @@ public class MultipleFramesBouncingBallsAnimation {
         if (grayFrameSize.length == 0 && yellowFrameSize.length == 0) {
             System.out.println("Error: No valid input was received. Instead a random value was generated");
             grayFrameSize = new int[1];
-            grayFrameSize[0] = rand.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
+            grayFrameSize[0] = sceneGenerator.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
             yellowFrameSize = new int[1];
-            yellowFrameSize[0] = rand.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
+            yellowFrameSize[0] = sceneGenerator.nextInt(Globals.DEFAULT_SIZE_VALUE) + 1;
         }
         Ball[] grayBallArr = frameGenerator.createBallArr(grayFrameSize,
                 Globals.GREY_BALL_MINIMUM, Globals.GREY_BALL_MAXIMUM,
@@ -0,0 +1,172 @@
+import java.math.BigDecimal;
+/**
+ * The OrientationKernel class intersects segments with orientation tests: the sign of the cross product that tells
+ * whether a point is to the left of, to the right of, or on the line through two other points.
+ * Two segments intersect when the end points of each one are not on the same side of the other, so deciding if
+ * segments intersect needs no division and no slope, and near-vertical segments are as stable as any other.
+ * The sign is computed in floating point and checked against a bound on the rounding error of the computation. Only
+ * when the result is too close to zero to trust is it recomputed exactly with BigDecimal, which is rare for random
+ * segments and makes every decision exact.
+ */
+public class OrientationKernel {
+    // The bound on the relative rounding error of the cross product in floating point, (3 + 16 * eps) * eps
+    private static final double ERROR_BOUND = (3.0 + 16.0 * Math.ulp(1.0) / 2) * Math.ulp(1.0) / 2;
+
+    /**
+     * Returns the orientation of the point c relative to the directed line from a to b.
+     *
+     * @param ax the x coordinate of a
+     * @param ay the y coordinate of a
+     * @param bx the x coordinate of b
+     * @param by the y coordinate of b
+     * @param cx the x coordinate of c
+     * @param cy the y coordinate of c
+     * @return 1 if a, b and c turn counterclockwise (in y-up coordinates), -1 if clockwise and 0 if collinear
+     */
+    public static int orientation(double ax, double ay, double bx, double by, double cx, double cy) {
+        double left = (bx - ax) * (cy - ay);
+        double right = (by - ay) * (cx - ax);
+        double determinant = left - right;
+        double errorBound = ERROR_BOUND * (Math.abs(left) + Math.abs(right));
+        if (determinant > errorBound) {
+            return 1;
+        }
+        if (-determinant > errorBound) {
+            return -1;
+        }
+        return exactOrientation(ax, ay, bx, by, cx, cy);
+    }
+
+    /**
+     * Checks if the segment from a to b intersects the segment from c to d, including touching and overlapping.
+     *
+     * @param ax the x coordinate of a
+     * @param ay the y coordinate of a
+     * @param bx the x coordinate of b
+     * @param by the y coordinate of b
+     * @param cx the x coordinate of c
+     * @param cy the y coordinate of c
+     * @param dx the x coordinate of d
+     * @param dy the y coordinate of d
+     * @return true if the segments have at least one common point, false otherwise
+     */
+    public static boolean intersects(double ax, double ay, double bx, double by,
+                                     double cx, double cy, double dx, double dy) {
+        int o1 = orientation(ax, ay, bx, by, cx, cy);
+        int o2 = orientation(ax, ay, bx, by, dx, dy);
+        if (o1 * o2 > 0) {
+            return false;
+        }
+        int o3 = orientation(cx, cy, dx, dy, ax, ay);
+        int o4 = orientation(cx, cy, dx, dy, bx, by);
+        if (o3 * o4 > 0) {
+            return false;
+        }
+        if (o1 == 0 && o2 == 0) {
+            // all four points are on one line, the segments intersect if their ranges on it overlap
+            return inBox(cx, cy, ax, ay, bx, by) || inBox(dx, dy, ax, ay, bx, by)
+                    || inBox(ax, ay, cx, cy, dx, dy) || inBox(bx, by, cx, cy, dx, dy);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the single intersection point of the segment from a to b and the segment from c to d.
+     * Like Line.intersectionWith, overlapping segments have no single intersection point, unless they only share an
+     * end point. An end point that lies on the other segment is returned exactly.
+     *
+     * @param ax the x coordinate of a
+     * @param ay the y coordinate of a
+     * @param bx the x coordinate of b
+     * @param by the y coordinate of b
+     * @param cx the x coordinate of c
+     * @param cy the y coordinate of c
+     * @param dx the x coordinate of d
+     * @param dy the y coordinate of d
+     * @return the intersection point, or null if the segments don't intersect or overlap
+     */
+    public static Point intersection(double ax, double ay, double bx, double by,
+                                     double cx, double cy, double dx, double dy) {
+        boolean firstIsPoint = ax == bx && ay == by;
+        boolean secondIsPoint = cx == dx && cy == dy;
+        if (firstIsPoint || secondIsPoint) {
+            // a segment that is a single point intersects where it lies on the other segment
+            double px = firstIsPoint ? ax : cx;
+            double py = firstIsPoint ? ay : cy;
+            double sx = firstIsPoint ? cx : ax;
+            double sy = firstIsPoint ? cy : ay;
+            double ex = firstIsPoint ? dx : bx;
+            double ey = firstIsPoint ? dy : by;
+            if (orientation(sx, sy, ex, ey, px, py) == 0 && inBox(px, py, sx, sy, ex, ey)) {
+                return new Point(px, py);
+            }
+            return null;
+        }
+        int o1 = orientation(ax, ay, bx, by, cx, cy);
+        int o2 = orientation(ax, ay, bx, by, dx, dy);
+        if (o1 * o2 > 0) {
+            return null;
+        }
+        int o3 = orientation(cx, cy, dx, dy, ax, ay);
+        int o4 = orientation(cx, cy, dx, dy, bx, by);
+        if (o3 * o4 > 0) {
+            return null;
+        }
+        if (o1 == 0 && o2 == 0) {
+            return collinearIntersection(ax, ay, bx, by, cx, cy, dx, dy);
+        }
+        // an end point on the other segment is the exact intersection point
+        if (o1 == 0) {
+            return new Point(cx, cy);
+        }
+        if (o2 == 0) {
+            return new Point(dx, dy);
+        }
+        if (o3 == 0) {
+            return new Point(ax, ay);
+        }
+        if (o4 == 0) {
+            return new Point(bx, by);
+        }
+        // the segments cross properly, the point is at a fraction t of the way from a to b
+        double abx = bx - ax;
+        double aby = by - ay;
+        double cdx = dx - cx;
+        double cdy = dy - cy;
+        double t = ((cx - ax) * cdy - (cy - ay) * cdx) / (abx * cdy - aby * cdx);
+        t = Math.min(Math.max(t, 0), 1);
+        return new Point(ax + t * abx, ay + t * aby);
+    }
+
+    // The intersection of two segments on the same line: their shared end point if that is all they share
+    private static Point collinearIntersection(double ax, double ay, double bx, double by,
+                                               double cx, double cy, double dx, double dy) {
+        // compare the ranges along the axis the line is closer to, where they can't collapse
+        boolean alongX = Math.abs(bx - ax) >= Math.abs(by - ay);
+        double a = alongX ? ax : ay;
+        double b = alongX ? bx : by;
+        double c = alongX ? cx : cy;
+        double d = alongX ? dx : dy;
+        double low = Math.max(Math.min(a, b), Math.min(c, d));
+        double high = Math.min(Math.max(a, b), Math.max(c, d));
+        if (low != high) {
+            // the ranges are apart, or overlap in infinitely many points
+            return null;
+        }
+        return a == low ? new Point(ax, ay) : new Point(bx, by);
+    }
+
+    // Checks if p is in the bounding box of the segment from s to e
+    private static boolean inBox(double px, double py, double sx, double sy, double ex, double ey) {
+        return px >= Math.min(sx, ex) && px <= Math.max(sx, ex) && py >= Math.min(sy, ey) && py <= Math.max(sy, ey);
+    }
+
+    // The orientation computed exactly, every double is exactly representable as a BigDecimal
+    private static int exactOrientation(double ax, double ay, double bx, double by, double cx, double cy) {
+        BigDecimal x = new BigDecimal(ax);
+        BigDecimal y = new BigDecimal(ay);
+        BigDecimal left = new BigDecimal(bx).subtract(x).multiply(new BigDecimal(cy).subtract(y));
+        BigDecimal right = new BigDecimal(by).subtract(y).multiply(new BigDecimal(cx).subtract(x));
+        return left.compareTo(right);
+    }
+}
@@ -0,0 +1,153 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+/**
+ * A ScreenMotionManager that moves the balls of the screen on several cores.
+ * The balls of all the frames are treated as one range, which is split into chunks (so a big frame is split
+ * between workers and small frames are grouped together) and stepped on a fork-join pool.
+ * Every ball only bounces against the walls of its own frame, so each chunk is independent of the others.
+ * Collisions between balls, when enabled, are resolved after all the chunks are done.
+ * The frames that are asleep are left out of the range.
+ */
+public class ParallelMotionManager extends ScreenMotionManager {
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+    // The amount of queued tasks from which a worker stops splitting its range in the adaptive mode
+    private static final int SURPLUS_THRESHOLD = 3;
+    private Screen screen;
+    private ForkJoinPool pool;
+    private int chunkSize;
+    private boolean deterministic = true;
+    // offsets[f] is the index of the first ball of frame f in the range of all balls
+    private int[] offsets = new int[1];
+
+    /**
+     * Constructor for the ParallelMotionManager class.
+     *
+     * @param screen      the screen whose balls are moved
+     * @param parallelism the amount of worker threads
+     * @param chunkSize   the amount of balls a single task moves
+     */
+    ParallelMotionManager(Screen screen, int parallelism, int chunkSize) {
+        super(screen);
+        if (parallelism < 1 || chunkSize < 1) {
+            throw new IllegalArgumentException("parallelism and chunk size must be positive");
+        }
+        this.screen = screen;
+        this.pool = new ForkJoinPool(parallelism);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Constructor for the ParallelMotionManager class, using a worker for each available core.
+     *
+     * @param screen the screen whose balls are moved
+     */
+    ParallelMotionManager(Screen screen) {
+        this(screen, Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Sets whether the balls are split into a fixed layout of chunks.
+     * In the deterministic mode the chunks are always the same aligned blocks of chunkSize balls, no matter how
+     * the work is scheduled, and the result is bit-identical to the one of ScreenMotionManager.
+     * Otherwise a worker stops splitting its range as soon as the other workers are busy, which adapts better
+     * to uneven loads.
+     *
+     * @param deterministic true for a fixed layout of chunks
+     */
+    public void setDeterministic(boolean deterministic) {
+        this.deterministic = deterministic;
+    }
+
+    /**
+     * Returns the amount of worker threads.
+     *
+     * @return the amount of worker threads
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Returns the amount of balls a single task moves.
+     *
+     * @return the chunk size
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Moves all the balls of the screen one step, splitting the work between the workers of the pool. Collisions
+     * between balls are resolved sequentially afterwards, which keeps them in the same order as ScreenMotionManager.
+     */
+    @Override
+    void moveAllBalls() {
+        Frame[] frames = screen.getFrames();
+        if (offsets.length != frames.length + 1) {
+            offsets = new int[frames.length + 1];
+        }
+        for (int f = 0; f < frames.length; f++) {
+            offsets[f + 1] = offsets[f] + (frames[f].isAsleep() ? 0 : frames[f].getBallStore().size());
+        }
+        int total = offsets[frames.length];
+        if (total <= chunkSize) {
+            moveRange(frames, 0, total);
+        } else {
+            pool.invoke(new StepTask(frames, 0, total));
+        }
+    }
+
+    /**
+     * Stops the worker threads. The manager can't be used after it is shut down.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Moves the balls in the given range of all the balls, the range may span a few frames
+    private void moveRange(Frame[] frames, int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        int f = Arrays.binarySearch(offsets, 0, frames.length, from);
+        if (f < 0) {
+            f = -f - 2;
+        }
+        // skip frames without balls that start at the same offset
+        while (offsets[f + 1] <= from) {
+            f++;
+        }
+        while (from < to) {
+            int end = Math.min(to, offsets[f + 1]);
+            moveBalls(frames[f], from - offsets[f], end - offsets[f]);
+            from = end;
+            f++;
+        }
+    }
+
+    // A task that moves a range of all the balls, splitting it while it is bigger than a chunk
+    private class StepTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private Frame[] frames;
+        private int from;
+        private int to;
+
+        StepTask(Frame[] frames, int from, int to) {
+            this.frames = frames;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int chunks = (to - from + chunkSize - 1) / chunkSize;
+            if (chunks <= 1 || (!deterministic && getSurplusQueuedTaskCount() > SURPLUS_THRESHOLD)) {
+                moveRange(frames, from, to);
+                return;
+            }
+            int middle = from + (chunks / 2) * chunkSize;
+            invokeAll(new StepTask(frames, from, middle), new StepTask(frames, middle, to));
+        }
+    }
+}
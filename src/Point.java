@@ -59,7 +59,46 @@ public class Point {
      * @return the distance between this point and the other point
      */
     public double distance(Point otherPoint) {
-        return Math.sqrt(Math.pow(x - otherPoint.getX(), 2) + Math.pow(y - otherPoint.getY(), 2));
+        return distance(x, y, otherPoint.getX(), otherPoint.getY());
+    }
+
+    /**
+     * Returns the squared distance between this point and the other point. It orders points by distance like
+     * distance does, without the square root.
+     *
+     * @param otherPoint the other point to calculate the distance
+     * @return the squared distance between this point and the other point
+     */
+    public double distanceSq(Point otherPoint) {
+        return distanceSq(x, y, otherPoint.getX(), otherPoint.getY());
+    }
+
+    /**
+     * Returns the distance between two points given by their coordinates, without creating points.
+     *
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @return the distance between the points
+     */
+    public static double distance(double x1, double y1, double x2, double y2) {
+        return Math.sqrt(distanceSq(x1, y1, x2, y2));
+    }
+
+    /**
+     * Returns the squared distance between two points given by their coordinates, without creating points.
+     *
+     * @param x1 the x coordinate of the first point
+     * @param y1 the y coordinate of the first point
+     * @param x2 the x coordinate of the second point
+     * @param y2 the y coordinate of the second point
+     * @return the squared distance between the points
+     */
+    public static double distanceSq(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy;
     }
 
     /**
@@ -0,0 +1,17 @@
+/**
+ * A RenderSink draws the state of a screen after the simulation advances it.
+ */
+public interface RenderSink {
+    /**
+     * Draws the current state of the screen.
+     *
+     * @param screen the screen to draw
+     */
+    void render(Screen screen);
+
+    /**
+     * Releases what the sink holds, like its window. The sink isn't used after it is closed.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,42 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+/**
+ * The ReplayAnimation class plays back a recording of a TrajectoryRecorder on a GUI window, from a given tick and at
+ * a given speed, without running the physics.
+ */
+public class ReplayAnimation {
+    /**
+     * The main method that replays the recording.
+     *
+     * @param args The command line arguments: the path of the recording, an optional tick to start from and an
+     *             optional speed (the amount of ticks per frame, 1 by default)
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayAnimation recording [fromTick] [speed]");
+            return;
+        }
+        long fromTick = 0;
+        double speed = 1;
+        try {
+            if (args.length > 1) {
+                fromTick = Long.parseLong(args[1]);
+            }
+            if (args.length > 2) {
+                speed = Double.parseDouble(args[2]);
+            }
+        } catch (NumberFormatException notNumericError) {
+            System.out.println("Usage: ReplayAnimation recording [fromTick] [speed]");
+            return;
+        }
+        try (ReplayEngine replayEngine = new ReplayEngine(Paths.get(args[0]))) {
+            if (!replayEngine.seek(fromTick)) {
+                System.out.println("The recording ends at tick " + replayEngine.getTick());
+            }
+            BufferedScreenRenderer renderer = new BufferedScreenRenderer(replayEngine.getScreen());
+            replayEngine.play(renderer, speed, Long.MAX_VALUE);
+        } catch (IOException readError) {
+            System.out.println("Can't replay " + args[0] + ": " + readError.getMessage());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+import java.awt.Color;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+/**
+ * The ReplayEngine class plays back a simulation recorded by a TrajectoryRecorder, without running the physics.
+ * The balls of a screen are set to the recorded state of every tick, and the screen is drawn through a RenderSink
+ * at any speed, slower or faster than it was recorded. Seeking to a tick starts from the last keyframe before it,
+ * so a tick deep into a long recording is reached by decoding at most a keyframe interval of ticks.
+ * The replayed positions are the quantized ones of the recording.
+ */
+public class ReplayEngine implements AutoCloseable {
+    private static final double MILLIS_PER_SECOND = 1000.0;
+    private TrajectoryReader reader;
+    // The ticks of the keyframes in increasing order, and their offsets in the file
+    private long[] keyframeTicks;
+    private long[] keyframeOffsets;
+    private Screen screen;
+    // The last whole tick of the recording, a recording that wasn't closed may end in the middle of a tick
+    private long lastTick = Long.MAX_VALUE;
+    // The ticks the replay advances per frame and not yet advanced
+    private double pendingTicks;
+    private boolean ended;
+    // True when a keyframe was read since the screen was last set, so the radii and colors may have changed
+    private boolean keyframeRead;
+
+    /**
+     * Constructor for the ReplayEngine class. Opens the recording and loads its first tick. A recording without an
+     * index, which wasn't closed, is read once to find its keyframes and its last whole tick.
+     *
+     * @param path the path of the recording
+     * @throws IOException if the recording can't be read
+     */
+    public ReplayEngine(Path path) throws IOException {
+        reader = new TrajectoryReader(path);
+        try {
+            long[][] index = reader.readIndex();
+            if (index == null) {
+                index = scanKeyframes();
+            }
+            keyframeTicks = index[0];
+            keyframeOffsets = index[1];
+            if (keyframeTicks.length == 0) {
+                throw new IOException(path + " has no keyframes");
+            }
+            reader.seek(keyframeOffsets[0]);
+            if (!reader.next()) {
+                throw new IOException(path + " is empty");
+            }
+            screen = reader.toScreen();
+        } catch (IOException | RuntimeException readError) {
+            reader.close();
+            throw readError;
+        }
+    }
+
+    /**
+     * Returns the screen that shows the replayed state. A keyframe that changes the amount of frames or balls
+     * replaces it with a new screen.
+     *
+     * @return the replayed screen
+     */
+    public Screen getScreen() {
+        return screen;
+    }
+
+    /**
+     * Returns the tick of the replayed state.
+     *
+     * @return the current tick
+     */
+    public long getTick() {
+        return reader.getTick();
+    }
+
+    /**
+     * Returns the amount of keyframes of the recording.
+     *
+     * @return the amount of keyframes
+     */
+    public int getKeyframeAmount() {
+        return keyframeTicks.length;
+    }
+
+    /**
+     * Returns true if the replay reached the end of the recording.
+     *
+     * @return true at the end of the recording
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Moves the replay to the given tick, starting from the last keyframe before it.
+     *
+     * @param tick the tick to move to
+     * @return false if the recording ends before the tick, the replay is then at its last tick
+     * @throws IOException if the recording can't be read
+     */
+    public boolean seek(long tick) throws IOException {
+        int k = Arrays.binarySearch(keyframeTicks, Math.max(tick, 0));
+        if (k < 0) {
+            k = Math.max(-k - 2, 0);
+        }
+        // decoding forward from the current tick is cheaper when the keyframe isn't after it
+        if (reader.getTick() > tick || reader.getTick() < keyframeTicks[k] || ended) {
+            reader.seek(keyframeOffsets[k]);
+            ended = false;
+            if (!reader.next()) {
+                throw new IOException("the keyframe of tick " + keyframeTicks[k] + " is missing");
+            }
+            keyframeRead = true;
+        }
+        boolean reached = advance(tick - reader.getTick());
+        return reached && reader.getTick() == tick;
+    }
+
+    /**
+     * Advances the replay by the given amount of ticks.
+     *
+     * @param ticks the amount of ticks to advance
+     * @return false if the recording ended first
+     * @throws IOException if the recording can't be read
+     */
+    public boolean advance(long ticks) throws IOException {
+        for (long i = 0; i < ticks; i++) {
+            if (reader.getTick() >= lastTick || !reader.next()) {
+                ended = true;
+                break;
+            }
+            if (reader.isKeyframe()) {
+                keyframeRead = true;
+                if (!sameStructure()) {
+                    screen = reader.toScreen();
+                }
+            }
+        }
+        apply();
+        return !ended;
+    }
+
+    /**
+     * Plays the recording from the current tick to the given tick, or to its end, drawing the screen on every frame.
+     * The frames are paced at the rate the simulation ticks at, and every frame advances the given speed of ticks:
+     * a speed of 2 plays twice as fast, and a speed of 0.5 advances a tick every second frame.
+     *
+     * @param renderSink the sink that draws the screen
+     * @param speed      the amount of ticks per frame
+     * @param toTick     the tick to stop at
+     * @return the scheduler that paced the frames, with the achieved rate
+     * @throws IOException if the recording can't be read
+     */
+    public FrameScheduler play(RenderSink renderSink, double speed, long toTick) throws IOException {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("the speed must be positive");
+        }
+        FrameScheduler frameScheduler = new FrameScheduler(MILLIS_PER_SECOND / Globals.SLEEP_TIMER, 1);
+        frameScheduler.start();
+        while (!ended && reader.getTick() < toTick && !Thread.currentThread().isInterrupted()) {
+            frameScheduler.beginFrame();
+            renderSink.render(screen);
+            pendingTicks += speed;
+            long ticks = Math.min((long) pendingTicks, toTick - reader.getTick());
+            pendingTicks -= ticks;
+            advance(ticks);
+            frameScheduler.endFrame();
+        }
+        renderSink.render(screen);
+        return frameScheduler;
+    }
+
+    /**
+     * Closes the recording.
+     *
+     * @throws IOException if the recording can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Reads the whole recording once and returns the ticks and the offsets of its keyframes. The recording ends at
+    // the last tick that can be read whole
+    private long[][] scanKeyframes() throws IOException {
+        long[] ticks = new long[16];
+        long[] offsets = new long[16];
+        int amount = 0;
+        lastTick = -1;
+        while (nextWhole()) {
+            lastTick = reader.getTick();
+            if (!reader.isKeyframe()) {
+                continue;
+            }
+            if (amount == ticks.length) {
+                ticks = Arrays.copyOf(ticks, amount * 2);
+                offsets = Arrays.copyOf(offsets, amount * 2);
+            }
+            ticks[amount] = reader.getTick();
+            offsets[amount] = reader.getRecordOffset();
+            amount++;
+        }
+        return new long[][] {Arrays.copyOf(ticks, amount), Arrays.copyOf(offsets, amount)};
+    }
+
+    // Reads the next record, returns false at the end of the recording or at a record cut in the middle
+    private boolean nextWhole() throws IOException {
+        try {
+            return reader.next();
+        } catch (EOFException truncatedError) {
+            return false;
+        }
+    }
+
+    // Returns true if the state of the reader has the frames and the amounts of balls of the screen
+    private boolean sameStructure() {
+        Frame[] frames = screen.getFrames();
+        if (frames.length != reader.getFrameAmount()) {
+            return false;
+        }
+        for (int f = 0; f < frames.length; f++) {
+            if (frames[f].getBallStore().size() != reader.getBallAmount(f)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Sets the balls of the screen to the state of the reader
+    private void apply() {
+        if (!sameStructure()) {
+            screen = reader.toScreen();
+            keyframeRead = false;
+            return;
+        }
+        Frame[] frames = screen.getFrames();
+        for (int f = 0; f < frames.length; f++) {
+            BallStore store = frames[f].getBallStore();
+            for (int i = 0; i < store.size(); i++) {
+                store.setCenter(i, reader.getX(f, i), reader.getY(f, i));
+                store.setVelocity(i, reader.getDx(f, i), reader.getDy(f, i));
+                if (keyframeRead) {
+                    store.setRadius(i, reader.getRadius(f, i));
+                    if (store.getRgb(i) != reader.getRgb(f, i)) {
+                        store.setColor(i, reader.getRgb(f, i) == 0 ? null : new Color(reader.getRgb(f, i), true));
+                    }
+                }
+            }
+        }
+        keyframeRead = false;
+    }
+}
@@ -0,0 +1,190 @@
+import java.awt.Color;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+/**
+ * The SceneGenerator class generates the random balls and lines of the animations from an explicit seed, so a run
+ * can be reproduced by giving the same seed again.
+ * Single random values (for the command line defaults) come from a SplittableRandom seeded with the seed. The bulk
+ * methods split their output into blocks of a fixed size, and every block draws from its own SplittableRandom,
+ * whose seed is derived from the seed of the generator, the number of the bulk call and the number of the block.
+ * Big amounts are generated in parallel, and the output is the same whatever the amount of threads is, since a
+ * block doesn't depend on which thread generates it or when.
+ * The generator itself is meant to be used by one thread at a time.
+ */
+public class SceneGenerator {
+    // The amount of items generated from a single random generator
+    private static final int BLOCK_SIZE = 4096;
+    // The odd constant of SplittableRandom, used to spread consecutive numbers before mixing them
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private long seed;
+    private SplittableRandom random;
+    // The amount of bulk calls made so far, every call draws from its own blocks
+    private long calls;
+
+    /**
+     * Constructor for the SceneGenerator class.
+     *
+     * @param seed the seed all the random values are derived from
+     */
+    public SceneGenerator(long seed) {
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Constructor for the SceneGenerator class, with a seed that is different on every run.
+     */
+    public SceneGenerator() {
+        this(mix(System.nanoTime() ^ Thread.currentThread().getId()));
+    }
+
+    /**
+     * Returns the seed all the random values are derived from.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns a random integer from 0 up to the bound, excluded.
+     *
+     * @param bound the bound of the integer
+     * @return the random integer
+     */
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    /**
+     * Returns a random double from 0 up to 1, excluded.
+     *
+     * @return the random double
+     */
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    /**
+     * Returns balls with the given sizes at random positions within the limits, each with a random color and a
+     * random direction, and a speed given by its size.
+     *
+     * @param sizes the sizes of the balls
+     * @param xMin  minimum value of the x-coordinate of the balls
+     * @param xMax  maximum value of the x-coordinate of the balls
+     * @param yMin  minimum value of the y-coordinate of the balls
+     * @param yMax  maximum value of the y-coordinate of the balls
+     * @return the array of balls
+     */
+    public Ball[] createBallArr(int[] sizes, int xMin, int xMax, int yMin, int yMax) {
+        BallStore store = createBallStore(sizes, xMin, xMax, yMin, yMax);
+        Ball[] ballArr = new Ball[sizes.length];
+        for (int i = 0; i < ballArr.length; i++) {
+            ballArr[i] = new Ball(store.getX(i), store.getY(i), sizes[i], store.getColor(i));
+            ballArr[i].setVelocity(store.getDx(i), store.getDy(i));
+        }
+        return ballArr;
+    }
+
+    /**
+     * Returns a frame filled with random balls of the given sizes, like createBallArr, without creating a Ball for
+     * every ball. It is the way to generate millions of balls.
+     *
+     * @param sizes      the sizes of the balls
+     * @param leftBound  the left bound of the frame
+     * @param rightBound the right bound of the frame
+     * @param upperBound the upper bound of the frame
+     * @param lowerBound the lower bound of the frame
+     * @param color      the color of the frame
+     * @return the frame
+     */
+    public Frame createFrame(int[] sizes, int leftBound, int rightBound, int upperBound, int lowerBound,
+                             Color color) {
+        BallStore store = createBallStore(sizes, leftBound, rightBound, upperBound, lowerBound);
+        return new Frame(leftBound, rightBound, upperBound, lowerBound, store, color);
+    }
+
+    /**
+     * Returns random lines with integer end points in a window of the given size, from 1 to the width and the height.
+     *
+     * @param amount the amount of lines
+     * @param width  the width of the window
+     * @param height the height of the window
+     * @return the array of lines
+     */
+    public Line[] createLines(int amount, int width, int height) {
+        Line[] lines = new Line[amount];
+        long callSeed = nextCallSeed();
+        forEachBlock(amount, (block, from, to) -> {
+            SplittableRandom blockRandom = blockRandom(callSeed, block);
+            for (int i = from; i < to; i++) {
+                lines[i] = new Line(blockRandom.nextInt(width) + 1, blockRandom.nextInt(height) + 1,
+                        blockRandom.nextInt(width) + 1, blockRandom.nextInt(height) + 1);
+            }
+        });
+        return lines;
+    }
+
+    // Generates the balls of createBallArr into the columns of a new store
+    private BallStore createBallStore(int[] sizes, int xMin, int xMax, int yMin, int yMax) {
+        int amount = sizes.length;
+        double[] x = new double[amount];
+        double[] y = new double[amount];
+        double[] dx = new double[amount];
+        double[] dy = new double[amount];
+        int[] rgb = new int[amount];
+        long callSeed = nextCallSeed();
+        forEachBlock(amount, (block, from, to) -> {
+            SplittableRandom blockRandom = blockRandom(callSeed, block);
+            for (int i = from; i < to; i++) {
+                int size = sizes[i];
+                x[i] = blockRandom.nextDouble() * ((xMax - size) - (xMin + size)) + (xMin + size);
+                y[i] = blockRandom.nextDouble() * ((yMax - size) - (yMin + size)) + (yMin + size);
+                int angle = blockRandom.nextInt(Globals.MAX_ANGEL) + 1;
+                int speed = Ball.speedOf(size);
+                dx[i] = speed * Math.sin(Math.toRadians(angle));
+                dy[i] = speed * -Math.cos(Math.toRadians(angle));
+                rgb[i] = 0xFF000000 | (blockRandom.nextInt(Globals.COLOR_BOUND) << 16)
+                        | (blockRandom.nextInt(Globals.COLOR_BOUND) << 8) | blockRandom.nextInt(Globals.COLOR_BOUND);
+            }
+        });
+        return BallStore.readFrom(amount, DoubleBuffer.wrap(x), DoubleBuffer.wrap(y), DoubleBuffer.wrap(dx),
+                DoubleBuffer.wrap(dy), IntBuffer.wrap(sizes), IntBuffer.wrap(rgb));
+    }
+
+    // A work on the items of a block, from its first item to the item after its last
+    private interface BlockWork {
+        void run(int block, int from, int to);
+    }
+
+    // Runs the work on every block of the items, in parallel when there are several blocks
+    private static void forEachBlock(int amount, BlockWork work) {
+        int blocks = (amount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        IntStream range = IntStream.range(0, blocks);
+        if (blocks > 1) {
+            range = range.parallel();
+        }
+        range.forEach(block -> work.run(block, block * BLOCK_SIZE, Math.min(amount, (block + 1) * BLOCK_SIZE)));
+    }
+
+    // The seed of the next bulk call
+    private long nextCallSeed() {
+        calls++;
+        return mix(seed + calls * GOLDEN_GAMMA);
+    }
+
+    // The random generator of a block of a bulk call
+    private static SplittableRandom blockRandom(long callSeed, int block) {
+        return new SplittableRandom(mix(callSeed + (block + 1L) * GOLDEN_GAMMA));
+    }
+
+    // Scrambles the bits of a value, so close values give unrelated seeds (the finalizer of MurmurHash3)
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
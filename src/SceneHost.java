@@ -0,0 +1,132 @@
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * The SceneHost class runs many independent screens at once in a single process, on a shared pool of threads.
+ * Every screen is a HostedScene with its own lifecycle, target rate and tick budget. The scenes run in slices of at
+ * most their budget of ticks, and the host runs the slices by their due time, the slices due at the same time in
+ * turn, so dozens of scenes share a few threads fairly instead of each owning a thread like displayFrames does.
+ */
+public class SceneHost implements AutoCloseable {
+    private static final double MILLIS_PER_SECOND = 1000.0;
+    private static final AtomicInteger HOSTS = new AtomicInteger();
+    private int host;
+    // The amount of scenes displayed so far, which numbers their metrics
+    private AtomicInteger displayedScenes = new AtomicInteger();
+    private ScheduledThreadPoolExecutor executor;
+    private List<HostedScene> scenes = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructor for the SceneHost class.
+     *
+     * @param threads the amount of threads that run the scenes
+     */
+    public SceneHost(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("the amount of threads must be positive");
+        }
+        this.host = HOSTS.incrementAndGet();
+        AtomicInteger workers = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(threads,
+                runnable -> new Thread(runnable, "SceneHost-" + host + "-worker-" + workers.incrementAndGet()));
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Constructor for the SceneHost class, using a thread for each available core.
+     */
+    public SceneHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Adds a scene that runs the given loop. The scene is started by its start method. When the scene stops, the
+     * render sink of the loop is closed and its metrics are unregistered.
+     *
+     * @param name           the name of the scene
+     * @param simulationLoop the loop that moves and draws the screen of the scene
+     * @param ticksPerSecond the target amount of ticks per second, 0 to run as fast as possible
+     * @param tickBudget     the maximal amount of ticks run in a single slice
+     * @return the added scene
+     */
+    public HostedScene add(String name, SimulationLoop simulationLoop, double ticksPerSecond, int tickBudget) {
+        if (executor.isShutdown()) {
+            throw new IllegalStateException("the host is closed");
+        }
+        HostedScene scene = new HostedScene(name, simulationLoop, executor, ticksPerSecond, tickBudget);
+        scenes.add(scene);
+        return scene;
+    }
+
+    /**
+     * Adds a scene that displays the frames of the screen on a window, at the rate of displayFrames. Its metrics
+     * are registered under the name of the screen with the numbers of the host and of the scene, so screens with
+     * the same name don't clash.
+     *
+     * @param screen the screen to display
+     * @return the added scene
+     */
+    public HostedScene display(Screen screen) {
+        String metricsName = screen.getName() + " (host " + host + ", scene " + displayedScenes.incrementAndGet()
+                + ")";
+        return add(screen.getName(), screen.createDisplayLoop(metricsName), MILLIS_PER_SECOND / Globals.SLEEP_TIMER,
+                Globals.MAX_STEPS_PER_FRAME);
+    }
+
+    /**
+     * Returns the scenes added to the host, in the order they were added.
+     *
+     * @return the scenes of the host
+     */
+    public List<HostedScene> getScenes() {
+        return Collections.unmodifiableList(scenes);
+    }
+
+    /**
+     * Starts every scene that wasn't started yet.
+     */
+    public void startAll() {
+        for (HostedScene scene : scenes) {
+            if (scene.getState() == SceneState.NEW) {
+                scene.start();
+            }
+        }
+    }
+
+    /**
+     * Waits until every scene of the host is stopped.
+     *
+     * @param timeoutMillis the maximal time to wait in milliseconds
+     * @return true if all the scenes stopped, false if the time ran out first
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitStop(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (HostedScene scene : scenes) {
+            long left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (!scene.awaitStop(Math.max(0, left))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops every scene, waits for the slices that are running to end, and shuts down the threads of the host.
+     */
+    @Override
+    public void close() {
+        for (HostedScene scene : scenes) {
+            scene.stop();
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException interruptedError) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
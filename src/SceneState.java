@@ -0,0 +1,13 @@
+/**
+ * The SceneState enum is the lifecycle state of a scene run by a SceneHost.
+ */
+public enum SceneState {
+    // Added to the host and not started yet
+    NEW,
+    // Ticking on the threads of the host
+    RUNNING,
+    // Started and holding still, the scene can be resumed
+    PAUSED,
+    // Stopped for good, by a call to stop, by reaching its tick limit, or by a failure of a tick
+    STOPPED
+}
@@ -1,6 +1,3 @@
-import biuoop.DrawSurface;
-import biuoop.GUI;
-import biuoop.Sleeper;
 /**
  * This class represents a screen that contains multiple frames with balls.
  */
@@ -9,6 +6,10 @@ public class Screen {
     private int lowerBound;
     private String name;
     private Frame[] frames;
+    // The quadtree over the rectangles of the frames, built when it is first asked for
+    private FrameIndex frameIndex;
+    // The time between two summary lines of the metrics in milliseconds, 0 when no line is printed
+    private long metricsLogInterval;
 
     /**
      * Constructor for the Screen class.
@@ -35,26 +36,81 @@ public class Screen {
     }
 
     /**
-     * Displays the frames on the screen.
+     * Returns the index of the rectangles of the frames, which finds the frames drawn in a region of the screen and
+     * the frame that contains a point. It is built on the first call.
+     *
+     * @return the frame index
+     */
+    public FrameIndex getFrameIndex() {
+        if (frameIndex == null) {
+            frameIndex = new FrameIndex(frames);
+        }
+        return frameIndex;
+    }
+
+    /**
+     * Returns the right bound of the screen, which is its width.
+     *
+     * @return the right bound of the screen.
+     */
+    public int getRightBound() {
+        return rightBound;
+    }
+
+    /**
+     * Returns the lower bound of the screen, which is its height.
+     *
+     * @return the lower bound of the screen.
+     */
+    public int getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns the name of the screen.
+     *
+     * @return the name of the screen.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the time between two summary lines of the metrics of the animation, which are printed while the frames
+     * are displayed.
+     *
+     * @param metricsLogInterval the time between two lines in milliseconds, 0 to print no lines
+     */
+    public void setMetricsLogInterval(long metricsLogInterval) {
+        this.metricsLogInterval = metricsLogInterval;
+    }
+
+    /**
+     * Displays the frames on the screen. The metrics of the animation are registered as a JMX MBean.
+     * The balls are moved on a thread of their own and drawn on the calling thread, which runs until it is
+     * interrupted, a SceneHost runs several screens at once.
      */
     public void displayFrames() {
-        GUI gui = new GUI(name, rightBound, lowerBound);
-        Sleeper sleeper = new Sleeper();
-        DrawSurface drawSurface;
-        ScreenMotionManager screenMotionManager = new ScreenMotionManager(this);
-        while (true) {
-            drawSurface = gui.getDrawSurface();
-            for (Frame frame : frames) {
-                drawSurface.setColor(frame.getColor());
-                drawSurface.fillRectangle(frame.getLeftBound(), frame.getUpperBound(),
-                        frame.getWidth(), frame.getHeight());
-                for (Ball ball : frame.getBallArr()) {
-                    ball.drawOn(drawSurface);
-                }
-            }
-            screenMotionManager.moveOneStep();
-            gui.show(drawSurface);
-            sleeper.sleepFor(Globals.SLEEP_TIMER);
+        SimulationLoop simulationLoop = createDisplayLoop(name);
+        try {
+            simulationLoop.runPipelined(Long.MAX_VALUE, 1000.0 / Globals.SLEEP_TIMER,
+                    new FrameScheduler(1000.0 / Globals.SLEEP_TIMER, Globals.MAX_STEPS_PER_FRAME));
+        } finally {
+            simulationLoop.release();
         }
     }
+
+    // Returns a loop that moves the balls of the screen and draws them on a window, with metrics registered under
+    // the given name
+    SimulationLoop createDisplayLoop(String metricsName) {
+        AnimationMetrics metrics = new AnimationMetrics(metricsName);
+        metrics.register();
+        metrics.setLogInterval(metricsLogInterval);
+        SimulationLoop simulationLoop = new SimulationLoop(this, new ScreenMotionManager(this));
+        simulationLoop.setMetrics(metrics);
+        BufferedScreenRenderer renderer = new BufferedScreenRenderer(this);
+        renderer.setMetrics(metrics);
+        simulationLoop.setRenderSink(renderer);
+        return simulationLoop;
+    }
 }
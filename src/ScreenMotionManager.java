@@ -1,175 +1,589 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 /**
  * A class that manages the motion of the ball within the screen.
  * It ensures that the ball stays within the screen limits by bouncing it back in the opposite direction
  * if it's about to go out of range in the X or Y direction.
+ * Balls without a velocity are asleep and aren't moved, and frames whose balls are all asleep are skipped, so a
+ * mostly still screen costs little to step.
  */
 public class ScreenMotionManager {
+    // The maximal amount of walls a ball bounces off in a single step in the CONTINUOUS mode
+    private static final int MAX_BOUNCES_PER_STEP = 16;
+    private static final double MILLIS_PER_SECOND = 1000.0;
     private Screen screen;
+    private WallCollisionMode wallCollisionMode = WallCollisionMode.ANALYTIC;
+    // Resolves collisions between balls, null when balls only bounce off the walls
+    private BallCollisionResolver ballCollisionResolver;
+    // The simulated time of a tick, the velocities of the balls are in pixels per tick
+    private double tickSeconds = Globals.SLEEP_TIMER / MILLIS_PER_SECOND;
+    private int subSteps = 1;
+    private int maxTicksPerStep = Globals.MAX_STEPS_PER_FRAME;
+    // The simulated time that was given to step and not run yet
+    private double accumulator;
+    private long droppedTicks;
+    // The part of its velocity a ball moves in the current step, 1 for a whole tick
+    private double velocityScale = 1;
+    // Counts the wall bounces and the corner hits, null when nothing is counted
+    private AnimationMetrics metrics;
+    private List<StepListener> stepListeners = new ArrayList<>();
+    // settledVersions[f] is the version of the positions of frame f when it was asleep and none of its balls
+    // touched, -1 otherwise. Such a frame has no collisions to resolve until a ball moves
+    private long[] settledVersions = new long[0];
 
     ScreenMotionManager(Screen screen) {
         this.screen = screen;
     }
 
+    /**
+     * Sets the way the point where a ball meets a wall is computed.
+     * The LINE_REFERENCE mode is kept to compare the ANALYTIC mode against. The CONTINUOUS mode keeps fast balls
+     * accurate, which allows bigger steps.
+     *
+     * @param wallCollisionMode the wall collision mode
+     */
+    public void setWallCollisionMode(WallCollisionMode wallCollisionMode) {
+        this.wallCollisionMode = wallCollisionMode;
+    }
+
+    /**
+     * Returns the way the point where a ball meets a wall is computed.
+     *
+     * @return the wall collision mode
+     */
+    public WallCollisionMode getWallCollisionMode() {
+        return wallCollisionMode;
+    }
+
+    /**
+     * Sets whether the balls of a frame bounce off each other, and not only off the walls of the frame.
+     *
+     * @param enabled true to let the balls collide with each other
+     */
+    public void setBallCollisions(boolean enabled) {
+        ballCollisionResolver = enabled ? new BallCollisionResolver() : null;
+    }
+
+    /**
+     * Returns true if the balls of a frame bounce off each other.
+     *
+     * @return true if the balls collide with each other
+     */
+    public boolean getBallCollisions() {
+        return ballCollisionResolver != null;
+    }
+
+    /**
+     * Sets the metrics that count the bounces of the balls off the walls and the corners.
+     *
+     * @param metrics the metrics, or null to count nothing
+     */
+    public void setMetrics(AnimationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the metrics that count the bounces of the balls, null if nothing is counted.
+     *
+     * @return the metrics
+     */
+    public AnimationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Adds a listener that is told after every step of the balls.
+     *
+     * @param stepListener the listener to add
+     */
+    public void addStepListener(StepListener stepListener) {
+        stepListeners.add(stepListener);
+    }
+
+    /**
+     * Removes a listener added by addStepListener.
+     *
+     * @param stepListener the listener to remove
+     */
+    public void removeStepListener(StepListener stepListener) {
+        stepListeners.remove(stepListener);
+    }
+
+    /**
+     * Sets the simulated time of a tick. The velocities of the balls are in pixels per tick, so a shorter tick makes
+     * the balls move faster in simulated time.
+     *
+     * @param tickSeconds the duration of a tick in seconds
+     */
+    public void setTickSeconds(double tickSeconds) {
+        if (tickSeconds <= 0) {
+            throw new IllegalArgumentException("the duration of a tick must be positive");
+        }
+        this.tickSeconds = tickSeconds;
+    }
+
+    /**
+     * Returns the simulated time of a tick.
+     *
+     * @return the duration of a tick in seconds
+     */
+    public double getTickSeconds() {
+        return tickSeconds;
+    }
+
+    /**
+     * Sets the amount of sub-steps a tick is split into by step. More sub-steps bounce the balls off the walls and
+     * off each other more accurately, and cost more.
+     *
+     * @param subSteps the amount of sub-steps of a tick
+     */
+    public void setSubSteps(int subSteps) {
+        if (subSteps < 1) {
+            throw new IllegalArgumentException("the amount of sub-steps must be positive");
+        }
+        this.subSteps = subSteps;
+    }
+
+    /**
+     * Returns the amount of sub-steps a tick is split into by step.
+     *
+     * @return the amount of sub-steps of a tick
+     */
+    public int getSubSteps() {
+        return subSteps;
+    }
+
+    /**
+     * Sets the maximal amount of ticks a single call to step runs. Time beyond it is dropped, so a slow machine
+     * slows the simulation down instead of falling further and further behind.
+     *
+     * @param maxTicksPerStep the maximal amount of ticks per call
+     */
+    public void setMaxTicksPerStep(int maxTicksPerStep) {
+        if (maxTicksPerStep < 1) {
+            throw new IllegalArgumentException("the maximal amount of ticks must be positive");
+        }
+        this.maxTicksPerStep = maxTicksPerStep;
+    }
+
+    /**
+     * Returns the maximal amount of ticks a single call to step runs.
+     *
+     * @return the maximal amount of ticks per call
+     */
+    public int getMaxTicksPerStep() {
+        return maxTicksPerStep;
+    }
+
+    /**
+     * Advances the simulation by the given time. The time is added to an accumulator, and a whole tick is run for
+     * every tick the accumulator holds, each split into the configured sub-steps. The rest of the time waits in the
+     * accumulator for the next call, so the simulation runs at the same speed whatever the calls are paced at.
+     *
+     * @param dt the elapsed time in seconds
+     * @return the amount of ticks that were run
+     */
+    public int step(double dt) {
+        accumulator += dt;
+        int ticks = 0;
+        while (accumulator >= tickSeconds) {
+            if (ticks == maxTicksPerStep) {
+                long dropped = (long) (accumulator / tickSeconds);
+                droppedTicks += dropped;
+                accumulator -= dropped * tickSeconds;
+                break;
+            }
+            velocityScale = 1.0 / subSteps;
+            for (int subStep = 0; subStep < subSteps; subStep++) {
+                moveAllBalls();
+                resolveBallCollisions();
+            }
+            velocityScale = 1;
+            // the listeners see whole ticks, not the sub-steps
+            notifyStepListeners();
+            accumulator -= tickSeconds;
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * Returns how far the simulation is into the next tick, as the time waiting in the accumulator divided by the
+     * duration of a tick. A renderer can use it to interpolate between ticks.
+     *
+     * @return the part of the next tick that has elapsed, from 0 to 1
+     */
+    public double getTickProgress() {
+        return accumulator / tickSeconds;
+    }
+
+    /**
+     * Returns the amount of ticks dropped by step because a call had more time than its maximal amount of ticks.
+     *
+     * @return the amount of dropped ticks
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
     /**
      * Moves the ball one step within the limits of the screen.
      * If the next move of the ball is about to go out of range in the X or Y direction,
      * it bounces back in the opposite direction.
      */
     public void moveOneStep() {
+        moveAllBalls();
+        resolveBallCollisions();
+        notifyStepListeners();
+    }
+
+    /**
+     * Moves the balls of every frame that isn't asleep one step, without resolving the collisions between them and
+     * without telling the step listeners.
+     */
+    void moveAllBalls() {
         for (Frame frame : screen.getFrames()) {
-            for (Ball ball : frame.getBallArr()) {
-                if (ball.getVelocity() == null) {
-                    return;
-                }
-                Point nextStepCenter = ball.getVelocity().applyToPoint(ball.getCenter());
-                boolean eventInRange = isEventInRange(nextStepCenter, ball, frame);
-
-                if (eventInRange) {
-                    ball.setCenter(nextStepCenter);
-                } else {
-                    handleOutOfBounds(nextStepCenter, ball, frame);
-                }
+            if (!frame.isAsleep()) {
+                moveBalls(frame, 0, frame.getBallStore().size());
             }
         }
     }
 
-    private boolean isEventInRange(Point nextStepCenter, Ball ball, Frame frame) {
-        return nextStepCenter.getX() - ball.getSize() > frame.getLeftBound()
-                && nextStepCenter.getX() + ball.getSize() < frame.getRightBound()
-                && nextStepCenter.getY() - ball.getSize() > frame.getUpperBound()
-                && nextStepCenter.getY() + ball.getSize() < frame.getLowerBound();
+    /**
+     * Tells the step listeners that the balls moved one step.
+     */
+    void notifyStepListeners() {
+        for (int i = 0; i < stepListeners.size(); i++) {
+            stepListeners.get(i).stepped(screen);
+        }
     }
 
-    private void handleOutOfBounds(Point nextStepCenter, Ball ball, Frame frame) {
-        boolean eventDeviationXMin = nextStepCenter.getX() - ball.getSize() < frame.getLeftBound()
-                || doubleCompare(nextStepCenter.getX() - ball.getSize(), frame.getLeftBound());
-        boolean eventDeviationYMin = nextStepCenter.getY() - ball.getSize() < frame.getUpperBound()
-                || doubleCompare(nextStepCenter.getY() - ball.getSize(), frame.getUpperBound());
-        boolean eventDeviationXMax = nextStepCenter.getX() + ball.getSize() > frame.getRightBound()
-                || doubleCompare(nextStepCenter.getX() + ball.getSize(), frame.getRightBound());
-        boolean eventDeviationYMax = nextStepCenter.getY() + ball.getSize() > frame.getLowerBound()
-                || doubleCompare(nextStepCenter.getY() + ball.getSize(), frame.getLowerBound());
+    /**
+     * Bounces the balls of every frame off each other, if ball collisions are enabled. A ball that is hit wakes up.
+     * A frame that is asleep with no touching balls is skipped until one of its balls is moved.
+     */
+    void resolveBallCollisions() {
+        if (ballCollisionResolver == null) {
+            return;
+        }
+        Frame[] frames = screen.getFrames();
+        if (settledVersions.length != frames.length) {
+            settledVersions = new long[frames.length];
+            Arrays.fill(settledVersions, -1);
+        }
+        for (int f = 0; f < frames.length; f++) {
+            BallStore store = frames[f].getBallStore();
+            if (frames[f].isAsleep() && settledVersions[f] == store.getPositionVersion()) {
+                continue;
+            }
+            int collisions = ballCollisionResolver.resolve(frames[f]);
+            settledVersions[f] = collisions == 0 && frames[f].isAsleep() ? store.getPositionVersion() : -1;
+        }
+    }
 
-        flipDxDy(eventDeviationXMin, eventDeviationXMax, eventDeviationYMin, eventDeviationYMax, ball);
+    /**
+     * Moves the balls of the frame in the given index range one step within the limits of the frame. The balls
+     * that are asleep stay in place.
+     *
+     * @param frame the frame of the balls
+     * @param from  the index of the first ball to move
+     * @param to    the index after the last ball to move
+     */
+    void moveBalls(Frame frame, int from, int to) {
+        BallStore store = frame.getBallStore();
+        boolean continuous = wallCollisionMode == WallCollisionMode.CONTINUOUS;
+        if (store.getAwakeCount() == store.size()) {
+            // all the balls are awake, so none of them is checked
+            for (int i = from; i < to; i++) {
+                moveBall(store, i, frame, continuous);
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            if (store.isAwake(i)) {
+                moveBall(store, i, frame, continuous);
+            }
+        }
+    }
+
+    // Moves the ball one step, bouncing it off the walls of its frame
+    private void moveBall(BallStore store, int i, Frame frame, boolean continuous) {
+        if (continuous) {
+            sweep(store, i, frame);
+            return;
+        }
+        double nextStepX = store.getX(i) + store.getDx(i) * velocityScale;
+        double nextStepY = store.getY(i) + store.getDy(i) * velocityScale;
+        if (isEventInRange(nextStepX, nextStepY, store.getRadius(i), frame)) {
+            store.setCenter(i, nextStepX, nextStepY);
+        } else {
+            handleOutOfBounds(nextStepX, nextStepY, store, i, frame);
+        }
+    }
+
+    // Moves the ball along its whole step. The ball travels to the first wall it reaches, bounces off it, and goes on
+    // with the rest of the step until the step is over, so the walls are hit in the order of their time of impact
+    private void sweep(BallStore store, int i, Frame frame) {
+        int size = store.getRadius(i);
+        // the ball is inside the frame while its center is inside the frame shrunk by its radius
+        double minX = frame.getLeftBound() + size;
+        double maxX = frame.getRightBound() - size;
+        double minY = frame.getUpperBound() + size;
+        double maxY = frame.getLowerBound() - size;
+        if (minX > maxX || minY > maxY) {
+            // the ball is bigger than the frame, it has no room to bounce in
+            applyVelocity(store, i);
+            return;
+        }
+        double x = store.getX(i);
+        double y = store.getY(i);
+        double dx = store.getDx(i);
+        double dy = store.getDy(i);
+        double nextX = x + dx * velocityScale;
+        double nextY = y + dy * velocityScale;
+        if (nextX >= minX && nextX <= maxX && nextY >= minY && nextY <= maxY
+                && x >= minX && x <= maxX && y >= minY && y <= maxY) {
+            // most steps don't reach a wall
+            store.setCenter(i, nextX, nextY);
+            return;
+        }
+        // the part of a tick that is left to travel
+        double remaining = velocityScale;
+        for (int bounce = 0; bounce < MAX_BOUNCES_PER_STEP; bounce++) {
+            double timeX = timeToWall(x, dx, minX, maxX);
+            double timeY = timeToWall(y, dy, minY, maxY);
+            double time = Math.min(timeX, timeY);
+            if (time >= remaining) {
+                x += dx * remaining;
+                y += dy * remaining;
+                remaining = 0;
+                break;
+            }
+            // a ball that is already past a wall bounces off it at once
+            time = Math.max(time, 0);
+            x += dx * time;
+            y += dy * time;
+            remaining -= time;
+            // both walls of a corner can be hit at the same time
+            if (timeX <= time) {
+                x = dx < 0 ? minX : maxX;
+                dx = -dx;
+            }
+            if (timeY <= time) {
+                y = dy < 0 ? minY : maxY;
+                dy = -dy;
+            }
+            if (metrics != null) {
+                countBounces(timeX <= time, timeY <= time);
+            }
+        }
+        // after too many bounces the rest of the step is dropped
+        store.setCenter(i, Math.min(Math.max(x, minX), maxX), Math.min(Math.max(y, minY), maxY));
+        store.setVelocity(i, dx, dy);
+    }
+
+    // The part of the step after which a coordinate moving by the given velocity reaches one of its bounds
+    private double timeToWall(double position, double velocity, double min, double max) {
+        if (velocity > 0) {
+            return (max - position) / velocity;
+        }
+        if (velocity < 0) {
+            return (min - position) / velocity;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private boolean isEventInRange(double nextStepX, double nextStepY, int size, Frame frame) {
+        return nextStepX - size > frame.getLeftBound()
+                && nextStepX + size < frame.getRightBound()
+                && nextStepY - size > frame.getUpperBound()
+                && nextStepY + size < frame.getLowerBound();
+    }
+
+    private void handleOutOfBounds(double nextStepX, double nextStepY, BallStore store, int i, Frame frame) {
+        int size = store.getRadius(i);
+        boolean eventDeviationXMin = nextStepX - size < frame.getLeftBound()
+                || doubleCompare(nextStepX - size, frame.getLeftBound());
+        boolean eventDeviationYMin = nextStepY - size < frame.getUpperBound()
+                || doubleCompare(nextStepY - size, frame.getUpperBound());
+        boolean eventDeviationXMax = nextStepX + size > frame.getRightBound()
+                || doubleCompare(nextStepX + size, frame.getRightBound());
+        boolean eventDeviationYMax = nextStepY + size > frame.getLowerBound()
+                || doubleCompare(nextStepY + size, frame.getLowerBound());
+
+        flipDxDy(eventDeviationXMin, eventDeviationXMax, eventDeviationYMin, eventDeviationYMax, store, i);
+        if (metrics != null) {
+            countBounces(eventDeviationXMin || eventDeviationXMax, eventDeviationYMin || eventDeviationYMax);
+        }
 
         if (eventDeviationXMin && eventDeviationYMin) {
-            handleDeviationLeftUpperCorner(ball, frame);
+            handleDeviationLeftUpperCorner(store, i, frame);
         } else if (eventDeviationXMin && eventDeviationYMax) {
-            handleDeviationLeftLowerCorner(ball, frame);
+            handleDeviationLeftLowerCorner(store, i, frame);
         } else if (eventDeviationXMax && eventDeviationYMax) {
-            handleDeviationRightLowerCorner(ball, frame);
+            handleDeviationRightLowerCorner(store, i, frame);
         } else if (eventDeviationXMax && eventDeviationYMin) {
-            handleDeviationRightUpperCorner(ball, frame);
+            handleDeviationRightUpperCorner(store, i, frame);
         } else if (eventDeviationXMin) {
-            handleDeviationXMin(nextStepCenter, ball, frame);
+            handleDeviationXMin(nextStepX, nextStepY, store, i, frame);
         } else if (eventDeviationXMax) {
-            handleDeviationXMax(nextStepCenter, ball, frame);
+            handleDeviationXMax(nextStepX, nextStepY, store, i, frame);
         } else if (eventDeviationYMin) {
-            handleDeviationYMin(nextStepCenter, ball, frame);
+            handleDeviationYMin(nextStepX, nextStepY, store, i, frame);
         } else if (eventDeviationYMax) {
-            handleDeviationYMax(nextStepCenter, ball, frame);
+            handleDeviationYMax(nextStepX, nextStepY, store, i, frame);
         }
     }
 
     // Handle deviation when the ball hits the left upper corner of the screen
-    private void handleDeviationLeftUpperCorner(Ball ball, Frame frame) {
-        if (doubleCompare(ball.getCenter().getX() - ball.getSize(), frame.getLeftBound())
-                && doubleCompare(ball.getCenter().getY() - ball.getSize(), frame.getUpperBound())) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
-        }
-        ball.setCenter(new Point(frame.getLeftBound() + ball.getSize(), frame.getUpperBound() + ball.getSize()));
+    private void handleDeviationLeftUpperCorner(BallStore store, int i, Frame frame) {
+        int size = store.getRadius(i);
+        store.setCenter(i, frame.getLeftBound() + size, frame.getUpperBound() + size);
     }
 
     // Handle deviation when the ball hits the left lower corner of the screen
-    private void handleDeviationLeftLowerCorner(Ball ball, Frame frame) {
-        if (doubleCompare(ball.getCenter().getX() - ball.getSize(), frame.getLeftBound())
-                && doubleCompare(ball.getCenter().getY() + ball.getSize(), frame.getLowerBound())) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
+    private void handleDeviationLeftLowerCorner(BallStore store, int i, Frame frame) {
+        int size = store.getRadius(i);
+        if (doubleCompare(store.getX(i) - size, frame.getLeftBound())
+                && doubleCompare(store.getY(i) + size, frame.getLowerBound())) {
+            applyVelocity(store, i);
         } else {
-            ball.setCenter(new Point(frame.getLeftBound() + ball.getSize(), frame.getLowerBound() - ball.getSize()));
+            store.setCenter(i, frame.getLeftBound() + size, frame.getLowerBound() - size);
         }
     }
 
     // Handle deviation when the ball hits the right lower corner of the screen
-    private void handleDeviationRightLowerCorner(Ball ball, Frame frame) {
-        if (doubleCompare(ball.getCenter().getX() + ball.getSize(), frame.getRightBound())
-                && doubleCompare(ball.getCenter().getY() + ball.getSize(), frame.getLowerBound())) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
+    private void handleDeviationRightLowerCorner(BallStore store, int i, Frame frame) {
+        int size = store.getRadius(i);
+        if (doubleCompare(store.getX(i) + size, frame.getRightBound())
+                && doubleCompare(store.getY(i) + size, frame.getLowerBound())) {
+            applyVelocity(store, i);
         } else {
-            ball.setCenter(new Point(frame.getRightBound() - ball.getSize(), frame.getLowerBound() - ball.getSize()));
+            store.setCenter(i, frame.getRightBound() - size, frame.getLowerBound() - size);
         }
     }
 
     // Handle deviation when the ball hits the right upper corner of the screen
-    private void handleDeviationRightUpperCorner(Ball ball, Frame frame) {
-        if (doubleCompare(ball.getCenter().getX() + ball.getSize(), frame.getRightBound())
-                && doubleCompare(ball.getCenter().getY() - ball.getSize(), frame.getUpperBound())) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
+    private void handleDeviationRightUpperCorner(BallStore store, int i, Frame frame) {
+        int size = store.getRadius(i);
+        if (doubleCompare(store.getX(i) + size, frame.getRightBound())
+                && doubleCompare(store.getY(i) - size, frame.getUpperBound())) {
+            applyVelocity(store, i);
         } else {
-            ball.setCenter(new Point(frame.getRightBound() - ball.getSize(), frame.getUpperBound() + ball.getSize()));
+            store.setCenter(i, frame.getRightBound() - size, frame.getUpperBound() + size);
         }
 
     }
 
     // Handle deviation when the ball hits the left bound of the screen
-    private void handleDeviationXMin(Point nextStepCenter, Ball ball, Frame frame) {
-        Line centersLines = new Line(ball.getCenter(), nextStepCenter);
-        Point newCenter =
-                getInterPointCentersLine(centersLines, frame.getLeftBound() + ball.getSize(),
-                        frame.getUpperBound(), frame.getLeftBound() + ball.getSize(), frame.getLowerBound());
-        if (ball.getCenter().equals(newCenter)) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
-        } else {
-            ball.setCenter(newCenter);
-        }
+    private void handleDeviationXMin(double nextStepX, double nextStepY, BallStore store, int i, Frame frame) {
+        moveToVerticalWall(nextStepX, nextStepY, frame.getLeftBound() + store.getRadius(i), store, i, frame);
     }
 
     // Handle deviation when the ball hits the right bound of the screen
-    private void handleDeviationXMax(Point nextStepCenter, Ball ball, Frame frame) {
-        Line centersLines = new Line(ball.getCenter(), nextStepCenter);
-        Point newCenter = getInterPointCentersLine(centersLines, frame.getRightBound() - ball.getSize(),
-                frame.getUpperBound(), frame.getRightBound() - ball.getSize(), frame.getLowerBound());
-        if (ball.getCenter().equals(newCenter)) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
-        } else {
-            ball.setCenter(newCenter);
-        }
+    private void handleDeviationXMax(double nextStepX, double nextStepY, BallStore store, int i, Frame frame) {
+        moveToVerticalWall(nextStepX, nextStepY, frame.getRightBound() - store.getRadius(i), store, i, frame);
     }
 
     // Handle deviation when the ball hits the upper bound of the screen
-    private void handleDeviationYMin(Point nextStepCenter, Ball ball, Frame frame) {
-        Line centersLines = new Line(ball.getCenter(), nextStepCenter);
-        Point newCenter = getInterPointCentersLine(centersLines, frame.getLeftBound(),
-                frame.getUpperBound() + ball.getSize(), frame.getRightBound(),
-                frame.getUpperBound() + ball.getSize());
-        if (ball.getCenter().equals(newCenter)) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
-        } else {
-            ball.setCenter(newCenter);
-        }
+    private void handleDeviationYMin(double nextStepX, double nextStepY, BallStore store, int i, Frame frame) {
+        moveToHorizontalWall(nextStepX, nextStepY, frame.getUpperBound() + store.getRadius(i), store, i, frame);
     }
 
     // Handle deviation when the ball hits the lower bound of the screen
-    private void handleDeviationYMax(Point nextStepCenter, Ball ball, Frame frame) {
-        Line centersLines = new Line(ball.getCenter(), nextStepCenter);
-        Point newCenter = getInterPointCentersLine(centersLines, frame.getLeftBound(),
-                frame.getLowerBound() - ball.getSize(), frame.getRightBound(),
-                frame.getLowerBound() - ball.getSize());
-        if (ball.getCenter().equals(newCenter)) {
-            ball.setCenter(ball.getVelocity().applyToPoint(ball.getCenter()));
+    private void handleDeviationYMax(double nextStepX, double nextStepY, BallStore store, int i, Frame frame) {
+        moveToHorizontalWall(nextStepX, nextStepY, frame.getLowerBound() - store.getRadius(i), store, i, frame);
+    }
+
+    // Moves the ball to the point where its path crosses the vertical wall x = wallX
+    private void moveToVerticalWall(double nextStepX, double nextStepY, double wallX, BallStore store, int i,
+                                    Frame frame) {
+        double x = store.getX(i);
+        double y = store.getY(i);
+        if (wallCollisionMode == WallCollisionMode.LINE_REFERENCE) {
+            Line centersLines = new Line(x, y, nextStepX, nextStepY);
+            moveToWall(getInterPointCentersLine(centersLines, wallX, frame.getUpperBound(),
+                    wallX, frame.getLowerBound()), store, i);
+            return;
+        }
+        double pathDx = nextStepX - x;
+        if (Math.abs(pathDx) < Globals.THRESHOLD) {
+            // the path is parallel to the wall, so it doesn't cross it
+            return;
+        }
+        double impactY = y + (wallX - x) / pathDx * (nextStepY - y);
+        if (inRange(wallX, x, nextStepX) && inRange(impactY, y, nextStepY)
+                && inRange(impactY, frame.getUpperBound(), frame.getLowerBound())) {
+            moveToWall(wallX, impactY, store, i);
+        }
+    }
+
+    // Moves the ball to the point where its path crosses the horizontal wall y = wallY
+    private void moveToHorizontalWall(double nextStepX, double nextStepY, double wallY, BallStore store, int i,
+                                      Frame frame) {
+        double x = store.getX(i);
+        double y = store.getY(i);
+        if (wallCollisionMode == WallCollisionMode.LINE_REFERENCE) {
+            Line centersLines = new Line(x, y, nextStepX, nextStepY);
+            moveToWall(getInterPointCentersLine(centersLines, frame.getLeftBound(), wallY,
+                    frame.getRightBound(), wallY), store, i);
+            return;
+        }
+        double pathDy = nextStepY - y;
+        if (Math.abs(pathDy) < Globals.THRESHOLD) {
+            // the path is parallel to the wall, so it doesn't cross it
+            return;
+        }
+        double impactX = x + (wallY - y) / pathDy * (nextStepX - x);
+        if (inRange(wallY, y, nextStepY) && inRange(impactX, x, nextStepX)
+                && inRange(impactX, frame.getLeftBound(), frame.getRightBound())) {
+            moveToWall(impactX, wallY, store, i);
+        }
+    }
+
+    // Moves the ball to the point where it meets the wall, or bounces it away if it is already on the wall
+    private void moveToWall(Point newCenter, BallStore store, int i) {
+        if (newCenter == null) {
+            // the path of the ball doesn't reach the wall, the ball stays in place for this step
+            return;
+        }
+        moveToWall(newCenter.getX(), newCenter.getY(), store, i);
+    }
+
+    // Moves the ball to the given point on the wall, or bounces it away if it is already on the wall
+    private void moveToWall(double wallPointX, double wallPointY, BallStore store, int i) {
+        if (doubleCompare(store.getX(i), wallPointX) && doubleCompare(store.getY(i), wallPointY)) {
+            applyVelocity(store, i);
         } else {
-            ball.setCenter(newCenter);
+            store.setCenter(i, wallPointX, wallPointY);
+        }
+    }
+
+    // Moves the ball by its velocity, over the part of a tick of the current step
+    private void applyVelocity(BallStore store, int i) {
+        store.setCenter(i, store.getX(i) + store.getDx(i) * velocityScale,
+                store.getY(i) + store.getDy(i) * velocityScale);
+    }
+
+    // Counts a bounce off a vertical and/or a horizontal wall, both at once are a corner hit
+    private void countBounces(boolean vertical, boolean horizontal) {
+        if (vertical && horizontal) {
+            metrics.countWallBounces(2);
+            metrics.countCornerHit();
+        } else if (vertical || horizontal) {
+            metrics.countWallBounces(1);
         }
     }
 
     // Flips the x and/or y velocity of an object if it goes out of boundaries
     private void flipDxDy(boolean eventDeviationXMin, boolean eventDeviationXMax,
-                          boolean eventDeviationYMin, boolean eventDeviationYMax, Ball ball) {
+                          boolean eventDeviationYMin, boolean eventDeviationYMax, BallStore store, int i) {
         if (eventDeviationXMin || eventDeviationXMax) {
-            ball.getVelocity().setDx(ball.getVelocity().getDx() * (-1));
+            store.setDx(i, store.getDx(i) * (-1));
         }
         if (eventDeviationYMin || eventDeviationYMax) {
-            ball.getVelocity().setDy(ball.getVelocity().getDy() * (-1));
+            store.setDy(i, store.getDy(i) * (-1));
         }
     }
 
@@ -183,6 +597,12 @@ public class ScreenMotionManager {
 
     }
 
+    // Checks if a value is between two bounds (in any order) within a threshold
+    private boolean inRange(double value, double bound1, double bound2) {
+        return value > Math.min(bound1, bound2) - Globals.THRESHOLD
+                && value < Math.max(bound1, bound2) + Globals.THRESHOLD;
+    }
+
     // Compares two double values for equality within a threshold
     private boolean doubleCompare(double num1, double num2) {
         return Math.abs(num1 - num2) < Globals.THRESHOLD;
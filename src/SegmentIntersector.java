@@ -0,0 +1,319 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+/**
+ * The SegmentIntersector class finds all the intersection points between the lines of an array.
+ * Every intersecting pair of lines is reported once, and its intersection point is the one given by
+ * Line.intersectionWith with the engine of the intersector, so both modes report the same points.
+ * The SWEEP_LINE mode is the Bentley-Ottmann algorithm: a vertical line sweeps the plane from left to right, the
+ * lines it crosses are kept sorted by their height on it, and only lines that become neighbours are compared.
+ * It runs in O((n + k) log n) time for n lines and k intersections, instead of O(n^2) for the BRUTE_FORCE mode.
+ */
+public class SegmentIntersector {
+    // The distance under which two heights on the sweep line are considered the same
+    private static final double EPSILON = 1e-9;
+    private IntersectionSearchMode mode;
+    private IntersectionEngine engine;
+
+    /**
+     * Constructor for the SegmentIntersector class.
+     *
+     * @param mode   the way the intersecting pairs of lines are found
+     * @param engine the way a pair of lines is intersected
+     */
+    public SegmentIntersector(IntersectionSearchMode mode, IntersectionEngine engine) {
+        this.mode = mode;
+        this.engine = engine;
+    }
+
+    /**
+     * Constructor for the SegmentIntersector class, intersecting the lines by their slope and y-intercept.
+     *
+     * @param mode the way the intersecting pairs of lines are found
+     */
+    public SegmentIntersector(IntersectionSearchMode mode) {
+        this(mode, IntersectionEngine.SLOPE_INTERCEPT);
+    }
+
+    /**
+     * Constructor for the SegmentIntersector class, using the sweep line.
+     */
+    public SegmentIntersector() {
+        this(IntersectionSearchMode.SWEEP_LINE);
+    }
+
+    /**
+     * Returns the way the intersecting pairs of lines are found.
+     *
+     * @return the search mode
+     */
+    public IntersectionSearchMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Returns the way a pair of lines is intersected.
+     *
+     * @return the intersection engine
+     */
+    public IntersectionEngine getEngine() {
+        return engine;
+    }
+
+    /**
+     * Returns the intersection points between all the pairs of lines in the array, one point for each
+     * intersecting pair.
+     *
+     * @param lines the array of lines
+     * @return the list of the intersection points
+     */
+    public List<Point> findIntersections(Line[] lines) {
+        if (mode == IntersectionSearchMode.BRUTE_FORCE) {
+            List<Point> intersections = new ArrayList<>();
+            for (int i = 0; i < lines.length; i++) {
+                for (int j = i + 1; j < lines.length; j++) {
+                    Point intersection = lines[i].intersectionWith(lines[j], engine);
+                    if (intersection != null) {
+                        intersections.add(intersection);
+                    }
+                }
+            }
+            return intersections;
+        }
+        return new Sweep(lines, engine).run();
+    }
+
+    // A point where the sweep line stops, with the lines that start there
+    private static class Event {
+        private double x;
+        private double y;
+        private List<Integer> starts = new ArrayList<>();
+
+        Event(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    // The state of a single run of the sweep line
+    private static class Sweep {
+        // Markers used to search the status just below and just above the current event point
+        private static final int BELOW = -1;
+        private static final int ABOVE = -2;
+        private Line[] lines;
+        private IntersectionEngine engine;
+        // The left (or lower, for vertical lines) end point of every line, and its other end point
+        private double[] leftX;
+        private double[] leftY;
+        private double[] rightX;
+        private double[] rightY;
+        private double[] slope;
+        private double sweepX;
+        private double sweepY;
+        private TreeMap<Event, Event> events = new TreeMap<>(new Comparator<Event>() {
+            @Override
+            public int compare(Event event1, Event event2) {
+                int byX = Double.compare(event1.x, event2.x);
+                return byX != 0 ? byX : Double.compare(event1.y, event2.y);
+            }
+        });
+        // The lines that cross the sweep line, from the lowest to the highest
+        private TreeSet<Integer> status = new TreeSet<>(new Comparator<Integer>() {
+            @Override
+            public int compare(Integer line1, Integer line2) {
+                return compareOnSweepLine(line1, line2);
+            }
+        });
+        private Set<Long> testedPairs = new HashSet<>();
+        private List<Point> intersections = new ArrayList<>();
+
+        Sweep(Line[] lines, IntersectionEngine engine) {
+            this.lines = lines;
+            this.engine = engine;
+            int n = lines.length;
+            leftX = new double[n];
+            leftY = new double[n];
+            rightX = new double[n];
+            rightY = new double[n];
+            slope = new double[n];
+            for (int i = 0; i < n; i++) {
+                Point start = lines[i].getStart();
+                Point end = lines[i].getEnd();
+                boolean startIsLeft = start.getX() < end.getX()
+                        || (start.getX() == end.getX() && start.getY() <= end.getY());
+                Point left = startIsLeft ? start : end;
+                Point right = startIsLeft ? end : start;
+                leftX[i] = left.getX();
+                leftY[i] = left.getY();
+                rightX[i] = right.getX();
+                rightY[i] = right.getY();
+                slope[i] = leftX[i] == rightX[i] ? Double.POSITIVE_INFINITY
+                        : (rightY[i] - leftY[i]) / (rightX[i] - leftX[i]);
+            }
+        }
+
+        List<Point> run() {
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i].getStart().equals(lines[i].getEnd())) {
+                    // a line that is a single point is rare, compare it with every other line instead of sweeping it
+                    for (int j = 0; j < lines.length; j++) {
+                        if (j != i) {
+                            testPair(i, j);
+                        }
+                    }
+                    continue;
+                }
+                addEvent(leftX[i], leftY[i]).starts.add(i);
+                addEvent(rightX[i], rightY[i]);
+            }
+            while (!events.isEmpty()) {
+                handleEvent(events.pollFirstEntry().getKey());
+            }
+            return intersections;
+        }
+
+        private Event addEvent(double x, double y) {
+            Event event = new Event(x, y);
+            Event existing = events.get(event);
+            if (existing != null) {
+                return existing;
+            }
+            events.put(event, event);
+            return event;
+        }
+
+        private void handleEvent(Event event) {
+            sweepX = event.x;
+            sweepY = event.y;
+            // remove the lines that pass through the event point, they are neighbours in the status
+            List<Integer> passing = new ArrayList<>();
+            Iterator<Integer> iterator = status.tailSet(BELOW, false).iterator();
+            while (iterator.hasNext()) {
+                int line = iterator.next();
+                if (heightOnSweepLine(line) > sweepY + EPSILON) {
+                    break;
+                }
+                passing.add(line);
+                iterator.remove();
+            }
+            // every two lines that meet at the event point intersect
+            List<Integer> meeting = new ArrayList<>(passing);
+            meeting.addAll(event.starts);
+            for (int i = 0; i < meeting.size(); i++) {
+                for (int j = i + 1; j < meeting.size(); j++) {
+                    testPair(meeting.get(i), meeting.get(j));
+                }
+            }
+            // put back the lines that continue past the event point, together with the lines that start there,
+            // in their order just after the event point
+            boolean inserted = false;
+            for (int line : meeting) {
+                if (!endsAtEvent(line)) {
+                    status.add(line);
+                    inserted = true;
+                }
+            }
+            if (!inserted) {
+                testPair(status.lower(BELOW), status.higher(ABOVE));
+                return;
+            }
+            Integer lowest = status.higher(BELOW);
+            testPair(status.lower(lowest), lowest);
+            Integer highest = status.lower(ABOVE);
+            testPair(highest, status.higher(highest));
+        }
+
+        private boolean endsAtEvent(int line) {
+            return Math.abs(rightX[line] - sweepX) <= EPSILON && Math.abs(rightY[line] - sweepY) <= EPSILON;
+        }
+
+        // Intersects a pair of lines once, and stops the sweep line at their intersection if it is still ahead
+        private void testPair(Integer line1, Integer line2) {
+            if (line1 == null || line2 == null) {
+                return;
+            }
+            int first = Math.min(line1, line2);
+            int second = Math.max(line1, line2);
+            if (!testedPairs.add(((long) first << 32) | second)) {
+                return;
+            }
+            Point intersection = lines[first].intersectionWith(lines[second], engine);
+            if (intersection == null) {
+                return;
+            }
+            intersections.add(intersection);
+            // a point on a vertical or horizontal line is put exactly on it, so the event is ordered correctly
+            // against the other events along that line
+            double x = intersection.getX();
+            double y = intersection.getY();
+            if (slope[first] == Double.POSITIVE_INFINITY || slope[second] == Double.POSITIVE_INFINITY) {
+                x = slope[first] == Double.POSITIVE_INFINITY ? leftX[first] : leftX[second];
+            }
+            if (slope[first] == 0 || slope[second] == 0) {
+                y = slope[first] == 0 ? leftY[first] : leftY[second];
+            }
+            addIntersectionEvent(x, y);
+        }
+
+        // Stops the sweep line at an intersection point that is still ahead of it. A point a rounding error away from
+        // an existing event (usually an end point) is merged into it, and a point a rounding error away from the x of
+        // an existing event takes that x, otherwise the events would be processed out of order
+        private void addIntersectionEvent(double x, double y) {
+            Event from = new Event(x - EPSILON, Double.NEGATIVE_INFINITY);
+            Event to = new Event(x + EPSILON, Double.POSITIVE_INFINITY);
+            double snappedX = Math.abs(x - sweepX) <= EPSILON ? sweepX : x;
+            for (Event nearby : events.subMap(from, true, to, true).keySet()) {
+                if (Math.abs(nearby.y - y) <= EPSILON) {
+                    return;
+                }
+                snappedX = nearby.x;
+            }
+            if (snappedX > sweepX || (snappedX == sweepX && y > sweepY + EPSILON)) {
+                addEvent(snappedX, y);
+            }
+        }
+
+        // The height of a line where it crosses the sweep line, a vertical line is crossed at the event point
+        private double heightOnSweepLine(int line) {
+            if (line == BELOW || line == ABOVE) {
+                return sweepY;
+            }
+            if (slope[line] == Double.POSITIVE_INFINITY) {
+                return Math.min(Math.max(sweepY, leftY[line]), rightY[line]);
+            }
+            if (sweepX <= leftX[line]) {
+                return leftY[line];
+            }
+            if (sweepX >= rightX[line]) {
+                return rightY[line];
+            }
+            return leftY[line] + (sweepX - leftX[line]) * slope[line];
+        }
+
+        // Orders lines by their height on the sweep line, lines that meet there are ordered by their height just
+        // after it, which is the order of their slopes
+        private int compareOnSweepLine(int line1, int line2) {
+            if (line1 == line2) {
+                return 0;
+            }
+            double height1 = heightOnSweepLine(line1);
+            double height2 = heightOnSweepLine(line2);
+            if (Math.abs(height1 - height2) > EPSILON) {
+                return Double.compare(height1, height2);
+            }
+            if (line1 == BELOW || line2 == ABOVE) {
+                return -1;
+            }
+            if (line1 == ABOVE || line2 == BELOW) {
+                return 1;
+            }
+            int bySlope = Double.compare(slope[line1], slope[line2]);
+            return bySlope != 0 ? bySlope : Integer.compare(line1, line2);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+import java.util.concurrent.atomic.AtomicReference;
+/**
+ * The SimulationLoop class advances a screen tick after tick with a ScreenMotionManager.
+ * The loop doesn't need a display: drawing is done by an optional RenderSink, and without one the loop only runs
+ * the physics, as fast as possible or at a target rate. The physics and the drawing can also run at once on two
+ * threads, which hand the balls over through a TripleBufferedScreen.
+ */
+public class SimulationLoop {
+    private static final double NANOS_PER_SECOND = 1e9;
+    private Screen screen;
+    private ScreenMotionManager motionManager;
+    // The sink that draws the screen on every tick, null for a headless loop
+    private RenderSink renderSink;
+    // Times the steps and counts the bounces, null when nothing is measured
+    private AnimationMetrics metrics;
+    private long tick;
+
+    /**
+     * Constructor for the SimulationLoop class.
+     *
+     * @param screen        the screen that is simulated
+     * @param motionManager the motion manager that moves the balls of the screen
+     */
+    public SimulationLoop(Screen screen, ScreenMotionManager motionManager) {
+        this.screen = screen;
+        this.motionManager = motionManager;
+    }
+
+    /**
+     * Sets the sink that draws the screen on every tick, or null to run without drawing.
+     *
+     * @param renderSink the render sink
+     */
+    public void setRenderSink(RenderSink renderSink) {
+        this.renderSink = renderSink;
+    }
+
+    /**
+     * Sets the metrics that time the steps of the loop and the bytes they allocate, and count the bounces of the
+     * motion manager. The render sink is timed by its own metrics.
+     *
+     * @param metrics the metrics, or null to measure nothing
+     */
+    public void setMetrics(AnimationMetrics metrics) {
+        this.metrics = metrics;
+        motionManager.setMetrics(metrics);
+    }
+
+    /**
+     * Closes the render sink and unregisters the metrics of the loop, once the loop won't run anymore.
+     */
+    public void release() {
+        if (renderSink != null) {
+            renderSink.close();
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    /**
+     * Returns the amount of ticks the loop has run so far.
+     *
+     * @return the current tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Runs the given amount of ticks as fast as possible.
+     *
+     * @param ticks the amount of ticks to run
+     */
+    public void run(long ticks) {
+        for (long i = 0; i < ticks; i++) {
+            runTick();
+        }
+    }
+
+    /**
+     * Runs the given amount of ticks at the given rate, a single tick per frame.
+     * Ticks that are missed when the loop falls behind are dropped, and reported by the scheduler.
+     *
+     * @param ticks          the amount of ticks to run
+     * @param ticksPerSecond the target amount of ticks per second
+     * @return the scheduler that paced the loop, with the achieved rate
+     */
+    public FrameScheduler runAtRate(long ticks, double ticksPerSecond) {
+        FrameScheduler frameScheduler = new FrameScheduler(ticksPerSecond, 1);
+        runPaced(ticks, frameScheduler);
+        return frameScheduler;
+    }
+
+    /**
+     * Runs the given amount of frames paced by the given scheduler. Every frame draws the screen once, and runs
+     * as many ticks as the scheduler asks for, which is more than one when the loop falls behind.
+     *
+     * @param frames         the amount of frames to run
+     * @param frameScheduler the scheduler that paces the frames
+     */
+    public void runPaced(long frames, FrameScheduler frameScheduler) {
+        frameScheduler.start();
+        for (long i = 0; i < frames && !Thread.currentThread().isInterrupted(); i++) {
+            runFrame(frameScheduler.beginFrame());
+            frameScheduler.endFrame();
+        }
+    }
+
+    /**
+     * Runs a single frame without pacing it: draws the screen once if there is a sink, then moves the balls the given
+     * amount of steps.
+     *
+     * @param steps the amount of steps to move the balls
+     */
+    public void runFrame(int steps) {
+        if (renderSink != null) {
+            renderSink.render(screen);
+        }
+        moveSteps(steps);
+    }
+
+    /**
+     * Runs the given amount of frames at the given frame rate, and moves the balls by the time that really elapsed
+     * between the frames using the variable timestep of the motion manager. The balls move at the tick rate of the
+     * motion manager whatever the frame rate is, so the drawing and the physics are paced separately.
+     *
+     * @param frames          the amount of frames to run
+     * @param framesPerSecond the target amount of frames per second
+     * @return the scheduler that paced the frames, with the achieved rate
+     */
+    public FrameScheduler runTimed(long frames, double framesPerSecond) {
+        FrameScheduler frameScheduler = new FrameScheduler(framesPerSecond, 1);
+        frameScheduler.start();
+        long last = System.nanoTime();
+        for (long i = 0; i < frames && !Thread.currentThread().isInterrupted(); i++) {
+            frameScheduler.beginFrame();
+            if (renderSink != null) {
+                renderSink.render(screen);
+            }
+            long now = System.nanoTime();
+            long bytes = metrics != null ? AnimationMetrics.threadAllocatedBytes() : 0;
+            int ticks = motionManager.step((now - last) / NANOS_PER_SECOND);
+            if (metrics != null) {
+                recordStep(ticks, now, bytes);
+            }
+            tick += ticks;
+            last = now;
+            frameScheduler.endFrame();
+        }
+        return frameScheduler;
+    }
+
+    /**
+     * Runs the physics and the drawing at once on two threads, so the time of the drawing doesn't delay the steps.
+     * A physics thread moves the balls at the pace of the physics scheduler and publishes them after every frame of
+     * it through a TripleBufferedScreen, and the calling thread draws the last published copy at the given frame
+     * rate, skipping a frame when nothing new was published. The render sink is given the copies, never the screen.
+     * The tick of the loop is up to date once the method returned. An exception or an error that stops the physics
+     * thread ends the drawing too, and is thrown again on the calling thread.
+     *
+     * @param frames           the amount of frames of the drawing to run
+     * @param framesPerSecond  the target amount of frames drawn per second
+     * @param physicsScheduler the scheduler that paces the steps of the physics thread
+     * @return the scheduler that paced the drawing, with the achieved rate
+     */
+    public FrameScheduler runPipelined(long frames, double framesPerSecond, FrameScheduler physicsScheduler) {
+        TripleBufferedScreen buffers = new TripleBufferedScreen(screen);
+        AtomicReference<Throwable> physicsError = new AtomicReference<>();
+        Thread physics = new Thread(() -> {
+            try {
+                runPhysics(buffers, physicsScheduler);
+            } catch (Throwable error) {
+                physicsError.set(error);
+            }
+        }, screen.getName() + "-physics");
+        FrameScheduler frameScheduler = new FrameScheduler(framesPerSecond, 1);
+        physics.start();
+        frameScheduler.start();
+        try {
+            for (long i = 0; i < frames && !Thread.currentThread().isInterrupted() && physics.isAlive(); i++) {
+                frameScheduler.beginFrame();
+                if (buffers.acquire() && renderSink != null) {
+                    renderSink.render(buffers.getFront());
+                }
+                frameScheduler.endFrame();
+            }
+        } finally {
+            physics.interrupt();
+            joinUninterruptibly(physics);
+        }
+        rethrow(physicsError.get());
+        return frameScheduler;
+    }
+
+    // Moves the balls at the pace of the scheduler and publishes them after every frame, until interrupted
+    private void runPhysics(TripleBufferedScreen buffers, FrameScheduler physicsScheduler) {
+        physicsScheduler.start();
+        while (!Thread.currentThread().isInterrupted()) {
+            moveSteps(physicsScheduler.beginFrame());
+            buffers.publish(screen, tick);
+            physicsScheduler.endFrame();
+        }
+    }
+
+    // Throws the throwable of the physics thread on the calling thread, if there is one
+    private static void rethrow(Throwable physicsError) {
+        if (physicsError instanceof RuntimeException) {
+            throw (RuntimeException) physicsError;
+        }
+        if (physicsError instanceof Error) {
+            throw (Error) physicsError;
+        }
+        if (physicsError != null) {
+            throw new IllegalStateException("the physics thread failed", physicsError);
+        }
+    }
+
+    // Waits for the thread to end, and keeps the interrupt of the calling thread for after the wait
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException interruptedError) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Draws the screen if there is a sink, then moves the balls one step
+    private void runTick() {
+        if (renderSink != null) {
+            renderSink.render(screen);
+        }
+        moveSteps(1);
+    }
+
+    // Moves the balls the given amount of steps, and records them in the metrics
+    private void moveSteps(int steps) {
+        if (metrics == null) {
+            for (int step = 0; step < steps; step++) {
+                motionManager.moveOneStep();
+            }
+            tick += steps;
+            return;
+        }
+        long start = System.nanoTime();
+        long bytes = AnimationMetrics.threadAllocatedBytes();
+        for (int step = 0; step < steps; step++) {
+            motionManager.moveOneStep();
+        }
+        recordStep(steps, start, bytes);
+        tick += steps;
+    }
+
+    // Records steps that started at the given time, when the thread had allocated the given bytes
+    private void recordStep(int steps, long start, long bytesBefore) {
+        long bytesAfter = AnimationMetrics.threadAllocatedBytes();
+        long allocated = bytesBefore < 0 || bytesAfter < 0 ? -1 : bytesAfter - bytesBefore;
+        metrics.recordStep(steps, System.nanoTime() - start, allocated);
+    }
+}
@@ -0,0 +1,167 @@
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * The SimulationSnapshot class saves the state of a screen to a binary file and loads it back, so a run can be
+ * checkpointed and resumed instead of starting again from random balls.
+ * The file is a header with the size and the name of the screen, followed by every frame: its bounds, its color and
+ * its amount of balls, then the columns of its balls packed one after the other (the x, y, dx and dy as doubles,
+ * the radius and the color as ints). The columns are copied in bulk to and from memory-mapped regions of the file,
+ * so millions of balls are saved and loaded in a few milliseconds.
+ * All the values are little-endian.
+ */
+public class SimulationSnapshot {
+    // The first bytes of a snapshot file, "BBSN"
+    private static final int MAGIC = 0x4E534242;
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 5;
+    private static final int FRAME_HEADER_INTS = 6;
+    private static final int DOUBLE_COLUMNS = 4;
+    private static final int INT_COLUMNS = 2;
+
+    /**
+     * Saves the state of the screen, with all its frames and balls, to the given file. An existing file is replaced.
+     *
+     * @param screen the screen to save
+     * @param path   the path of the file
+     * @throws IOException if the file can't be written
+     */
+    public static void save(Screen screen, Path path) throws IOException {
+        byte[] name = screen.getName().getBytes(StandardCharsets.UTF_8);
+        Frame[] frames = screen.getFrames();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_WRITE, 0, headerBytes(name.length));
+            header.putInt(MAGIC).putInt(VERSION).putInt(screen.getRightBound()).putInt(screen.getLowerBound())
+                    .putInt(name.length).put(name).putInt(frames.length);
+            long position = headerBytes(name.length);
+            for (Frame frame : frames) {
+                BallStore store = frame.getBallStore();
+                int amount = store.size();
+                ByteBuffer frameBuffer = map(channel, FileChannel.MapMode.READ_WRITE, position, frameBytes(amount));
+                frameBuffer.putInt(frame.getLeftBound()).putInt(frame.getRightBound())
+                        .putInt(frame.getUpperBound()).putInt(frame.getLowerBound())
+                        .putInt(frame.getColor() == null ? 0 : frame.getColor().getRGB()).putInt(amount);
+                store.writeTo(column(frameBuffer, amount, 0).asDoubleBuffer(),
+                        column(frameBuffer, amount, 1).asDoubleBuffer(),
+                        column(frameBuffer, amount, 2).asDoubleBuffer(),
+                        column(frameBuffer, amount, 3).asDoubleBuffer(),
+                        column(frameBuffer, amount, 4).asIntBuffer(),
+                        column(frameBuffer, amount, 5).asIntBuffer());
+                position += frameBytes(amount);
+            }
+        }
+    }
+
+    /**
+     * Loads a screen saved by save from the given file.
+     *
+     * @param path the path of the file
+     * @return the screen, with its frames and balls in the saved state
+     * @throws IOException if the file can't be read or isn't a valid snapshot
+     */
+    public static Screen load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_INTS * Integer.BYTES) {
+                throw new IOException(path + " is not a snapshot");
+            }
+            // the fixed part of the header comes first, it gives the length of the name and so the whole header
+            ByteBuffer fixedHeader = map(channel, FileChannel.MapMode.READ_ONLY, 0, HEADER_INTS * Integer.BYTES);
+            if (fixedHeader.getInt() != MAGIC) {
+                throw new IOException(path + " is not a snapshot");
+            }
+            int version = fixedHeader.getInt();
+            if (version != VERSION) {
+                throw new IOException(path + " has the unsupported snapshot version " + version);
+            }
+            int width = fixedHeader.getInt();
+            int height = fixedHeader.getInt();
+            int nameLength = fixedHeader.getInt();
+            if (nameLength < 0 || headerBytes(nameLength) > length) {
+                throw new IOException(path + " is truncated");
+            }
+            ByteBuffer header = map(channel, FileChannel.MapMode.READ_ONLY, 0, headerBytes(nameLength));
+            header.position(HEADER_INTS * Integer.BYTES);
+            byte[] name = new byte[nameLength];
+            header.get(name);
+            int frameAmount = header.getInt();
+            if (frameAmount < 0) {
+                throw new IOException(path + " is not a snapshot");
+            }
+            Frame[] frames = new Frame[frameAmount];
+            long position = headerBytes(nameLength);
+            for (int f = 0; f < frames.length; f++) {
+                if (position + FRAME_HEADER_INTS * Integer.BYTES > length) {
+                    throw new IOException(path + " is truncated");
+                }
+                ByteBuffer frameHeader = map(channel, FileChannel.MapMode.READ_ONLY, position,
+                        FRAME_HEADER_INTS * Integer.BYTES);
+                int leftBound = frameHeader.getInt();
+                int rightBound = frameHeader.getInt();
+                int upperBound = frameHeader.getInt();
+                int lowerBound = frameHeader.getInt();
+                int rgb = frameHeader.getInt();
+                int amount = frameHeader.getInt();
+                if (amount < 0 || position + frameBytes(amount) > length) {
+                    throw new IOException(path + " is truncated");
+                }
+                ByteBuffer frameBuffer = map(channel, FileChannel.MapMode.READ_ONLY, position, frameBytes(amount));
+                BallStore store = BallStore.readFrom(amount, column(frameBuffer, amount, 0).asDoubleBuffer(),
+                        column(frameBuffer, amount, 1).asDoubleBuffer(),
+                        column(frameBuffer, amount, 2).asDoubleBuffer(),
+                        column(frameBuffer, amount, 3).asDoubleBuffer(),
+                        column(frameBuffer, amount, 4).asIntBuffer(),
+                        column(frameBuffer, amount, 5).asIntBuffer());
+                frames[f] = new Frame(leftBound, rightBound, upperBound, lowerBound, store,
+                        rgb == 0 ? null : new Color(rgb, true));
+                position += frameBytes(amount);
+            }
+            return new Screen(width, height, new String(name, StandardCharsets.UTF_8), frames);
+        }
+    }
+
+    // The size of the header of the file, up to the first frame. The frames start 8-byte aligned
+    private static long headerBytes(int nameLength) {
+        return align((long) (HEADER_INTS + 1) * Integer.BYTES + nameLength);
+    }
+
+    // The size of a frame with the given amount of balls: its header, then its columns, each 8-byte aligned
+    private static long frameBytes(int amount) {
+        return align((long) FRAME_HEADER_INTS * Integer.BYTES)
+                + DOUBLE_COLUMNS * align((long) amount * Double.BYTES)
+                + INT_COLUMNS * align((long) amount * Integer.BYTES);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    // The slice of the mapped frame that holds the given column of its balls
+    private static ByteBuffer column(ByteBuffer frameBuffer, int amount, int column) {
+        long offset = align((long) FRAME_HEADER_INTS * Integer.BYTES);
+        for (int c = 0; c < column; c++) {
+            offset += align((long) amount * (c < DOUBLE_COLUMNS ? Double.BYTES : Integer.BYTES));
+        }
+        int columnBytes = amount * (column < DOUBLE_COLUMNS ? Double.BYTES : Integer.BYTES);
+        return frameBuffer.slice((int) offset, columnBytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Maps a region of the file, a single mapping is limited to 2GB so a frame can't be bigger than that (about 50
+    // million balls)
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size)
+            throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("a frame of " + size + " bytes is too big for a snapshot");
+        }
+        MappedByteBuffer buffer = channel.map(mode, position, size);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+}
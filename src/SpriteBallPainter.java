@@ -0,0 +1,53 @@
+import biuoop.DrawSurface;
+/**
+ * A BallPainter that draws every ball by copying a pre-rendered anti-aliased circle from a SpriteCache, in the
+ * order of the frame.
+ */
+public class SpriteBallPainter implements BallPainter {
+    private SpriteCache spriteCache;
+    private DirectBallPainter framePainter = new DirectBallPainter();
+
+    /**
+     * Constructor for the SpriteBallPainter class.
+     *
+     * @param spriteCache the cache of the circle images
+     */
+    public SpriteBallPainter(SpriteCache spriteCache) {
+        this.spriteCache = spriteCache;
+    }
+
+    /**
+     * Constructor for the SpriteBallPainter class, with its own cache of the default size.
+     */
+    public SpriteBallPainter() {
+        this(new SpriteCache());
+    }
+
+    /**
+     * Returns the cache of the circle images.
+     *
+     * @return the sprite cache
+     */
+    public SpriteCache getSpriteCache() {
+        return spriteCache;
+    }
+
+    @Override
+    public int[] drawOrder(Frame frame) {
+        return framePainter.drawOrder(frame);
+    }
+
+    @Override
+    public void paint(Frame frame, int[] balls, int from, int to, DrawSurface surface) {
+        BallStore store = frame.getBallStore();
+        for (int i = from; i < to; i++) {
+            int ball = balls[i];
+            int radius = store.getRadius(ball);
+            if (radius <= 0) {
+                continue;
+            }
+            surface.drawImage((int) store.getX(ball) - radius, (int) store.getY(ball) - radius,
+                    spriteCache.get(radius, store.getRgb(ball)));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+/**
+ * The SpriteCache class keeps pre-rendered images of filled circles, keyed by their radius and color, so a ball can
+ * be drawn with a single image copy instead of rasterizing its circle every frame.
+ * The circles are drawn once with anti-aliasing on a transparent background. The cache is limited by the memory of
+ * its images: when adding a sprite goes over the limit, the least recently used sprites are evicted.
+ * It counts its hits, misses and evictions so the limit can be tuned. It is meant to be used by a single render
+ * thread.
+ */
+public class SpriteCache {
+    private static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+    private long maxBytes;
+    private long bytes;
+    // Ordered from the least to the most recently used sprite
+    private LinkedHashMap<Long, BufferedImage> sprites = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Constructor for the SpriteCache class.
+     *
+     * @param maxBytes the maximal memory of the cached images in bytes
+     */
+    public SpriteCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("the memory limit must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Constructor for the SpriteCache class, limited to 16 MB of images.
+     */
+    public SpriteCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Returns the sprite of a filled circle, rendering it if it isn't cached.
+     * The image is 2 * radius pixels wide and high, like the oval fillCircle fills, and is drawn at
+     * (x - radius, y - radius) for a circle centered at (x, y).
+     *
+     * @param radius the radius of the circle, positive
+     * @param rgb    the color of the circle in the default RGB color model
+     * @return the image of the circle
+     */
+    public BufferedImage get(int radius, int rgb) {
+        long key = ((long) radius << 32) | (rgb & 0xFFFFFFFFL);
+        BufferedImage sprite = sprites.get(key);
+        if (sprite != null) {
+            hits++;
+            return sprite;
+        }
+        misses++;
+        sprite = render(radius, rgb);
+        sprites.put(key, sprite);
+        bytes += bytesOf(sprite);
+        evict();
+        return sprite;
+    }
+
+    /**
+     * Removes all the sprites. The counters are kept.
+     */
+    public void clear() {
+        sprites.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the amount of sprites in the cache.
+     *
+     * @return the amount of sprites
+     */
+    public int size() {
+        return sprites.size();
+    }
+
+    /**
+     * Returns the memory of the cached images in bytes.
+     *
+     * @return the memory of the sprites
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the maximal memory of the cached images in bytes.
+     *
+     * @return the memory limit
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the amount of requests that found their sprite in the cache.
+     *
+     * @return the amount of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the amount of requests that had to render their sprite.
+     *
+     * @return the amount of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the amount of sprites removed to stay under the memory limit.
+     *
+     * @return the amount of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    // Removes the least recently used sprites until the cache is under its limit, keeping at least the newest one
+    private void evict() {
+        Iterator<Map.Entry<Long, BufferedImage>> iterator = sprites.entrySet().iterator();
+        while (bytes > maxBytes && sprites.size() > 1) {
+            BufferedImage eldest = iterator.next().getValue();
+            iterator.remove();
+            bytes -= bytesOf(eldest);
+            evictions++;
+        }
+    }
+
+    // Draws an anti-aliased circle that fills a transparent image, with premultiplied alpha which Java2D composites
+    // without converting
+    private static BufferedImage render(int radius, int rgb) {
+        int size = Math.max(radius * 2, 1);
+        BufferedImage sprite = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = sprite.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setColor(new Color(rgb, true));
+        graphics.fillOval(0, 0, radius * 2, radius * 2);
+        graphics.dispose();
+        return sprite;
+    }
+
+    private static long bytesOf(BufferedImage sprite) {
+        return (long) sprite.getWidth() * sprite.getHeight() * BYTES_PER_PIXEL;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * A StepListener is told by a ScreenMotionManager after every step of the balls, once all the balls of the screen
+ * were moved and the collisions between them were resolved.
+ */
+public interface StepListener {
+    /**
+     * Called after the balls of the screen moved one step.
+     *
+     * @param screen the screen whose balls moved
+     */
+    void stepped(Screen screen);
+}
@@ -0,0 +1,431 @@
+import java.awt.Color;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+/**
+ * The TrajectoryReader class reads a file written by a TrajectoryRecorder, one record after the other, and rebuilds
+ * the state of the balls at every recorded tick.
+ * The positions are the quantized ones, at most half a quantum away from the recorded positions, and the velocities
+ * are exact. The reader can jump to any keyframe by its offset in the file, which is listed in the index at the end
+ * of the file, or found by reading the whole file once if the recording wasn't closed.
+ */
+public class TrajectoryReader implements AutoCloseable {
+    private static final int BUFFER_BYTES = 1 << 16;
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    private double quantum;
+    // The inverse of the quantum, computed like the recorder computes it so the predictions are the same
+    private double scale;
+    private int width;
+    private int height;
+    private String name;
+    private long tick = -1;
+    private boolean keyframe;
+    // The offset in the file of the current record
+    private long recordOffset;
+    // The bounds of every frame, its left, right, upper and lower bound, and its color
+    private int[][] frameBounds = new int[0][];
+    private int[] frameRgb = new int[0];
+    // The state of the balls of every frame
+    private long[][] qx = new long[0][];
+    private long[][] qy = new long[0][];
+    private double[][] dx = new double[0][];
+    private double[][] dy = new double[0][];
+    private int[][] radius = new int[0][];
+    private int[][] rgb = new int[0][];
+
+    /**
+     * Constructor for the TrajectoryReader class. Opens the file and reads its header, the first call to next reads
+     * the first keyframe.
+     *
+     * @param path the path of the file
+     * @throws IOException if the file can't be read or isn't a trajectory file
+     */
+    public TrajectoryReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer.limit(0);
+        try {
+            if (!fill(2 * Integer.BYTES) || buffer.getInt() != TrajectoryRecorder.MAGIC) {
+                throw new IOException(path + " is not a trajectory file");
+            }
+            int version = buffer.getInt();
+            if (version != TrajectoryRecorder.VERSION) {
+                throw new IOException(path + " has the unsupported trajectory version " + version);
+            }
+            require(Double.BYTES + 2 * Integer.BYTES);
+            quantum = buffer.getDouble();
+            scale = 1 / quantum;
+            width = buffer.getInt();
+            height = buffer.getInt();
+            byte[] nameBytes = new byte[(int) getVarLong()];
+            require(nameBytes.length);
+            buffer.get(nameBytes);
+            name = new String(nameBytes, StandardCharsets.UTF_8);
+        } catch (IOException | RuntimeException readError) {
+            channel.close();
+            throw readError;
+        }
+    }
+
+    /**
+     * Reads the next record of the file, a tick or a keyframe, and updates the state of the balls to it.
+     *
+     * @return false if the file is over
+     * @throws IOException if the file can't be read or is truncated
+     */
+    public boolean next() throws IOException {
+        long offset = channel.position() - buffer.remaining();
+        if (!fill(1)) {
+            return false;
+        }
+        int type = buffer.get();
+        if (type == TrajectoryRecorder.INDEX) {
+            // the index follows the last record
+            buffer.position(buffer.position() - 1);
+            return false;
+        }
+        recordOffset = offset;
+        if (type == TrajectoryRecorder.KEYFRAME) {
+            readKeyframe();
+            return true;
+        }
+        if (type != TrajectoryRecorder.TICK) {
+            throw new IOException("unknown record type " + type);
+        }
+        keyframe = false;
+        tick++;
+        for (int f = 0; f < qx.length; f++) {
+            long[] frameQx = qx[f];
+            long[] frameQy = qy[f];
+            double[] frameDx = dx[f];
+            double[] frameDy = dy[f];
+            for (int i = 0; i < frameQx.length; i++) {
+                long codeX = getVarLong();
+                if ((codeX & 1) != 0) {
+                    require(Double.BYTES);
+                    frameDx[i] = buffer.getDouble();
+                }
+                frameQx[i] += TrajectoryRecorder.quantize(frameDx[i] * scale) + unzigzag(codeX >>> 1);
+                long codeY = getVarLong();
+                if ((codeY & 1) != 0) {
+                    require(Double.BYTES);
+                    frameDy[i] = buffer.getDouble();
+                }
+                frameQy[i] += TrajectoryRecorder.quantize(frameDy[i] * scale) + unzigzag(codeY >>> 1);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Moves to a keyframe, the next call to next reads it.
+     *
+     * @param offset the offset of the keyframe in the file, as given by getRecordOffset or readIndex
+     * @throws IOException if the file can't be read
+     */
+    public void seek(long offset) throws IOException {
+        channel.position(offset);
+        buffer.limit(0);
+    }
+
+    /**
+     * Returns the offset in the file of the current record.
+     *
+     * @return the offset of the current record
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Reads the index of the keyframes at the end of the file, without moving the reader.
+     *
+     * @return the ticks of the keyframes in the first row and their offsets in the second, or null if the file has
+     *         no index
+     * @throws IOException if the file can't be read or the index is malformed
+     */
+    public long[][] readIndex() throws IOException {
+        long size = channel.size();
+        if (size < TrajectoryRecorder.TRAILER_BYTES) {
+            return null;
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TrajectoryRecorder.TRAILER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(trailer, size - TrajectoryRecorder.TRAILER_BYTES);
+        long indexOffset = trailer.getLong();
+        if (trailer.getInt() != TrajectoryRecorder.MAGIC || indexOffset < 0
+                || indexOffset >= size - TrajectoryRecorder.TRAILER_BYTES) {
+            return null;
+        }
+        ByteBuffer index = ByteBuffer.allocate((int) (size - TrajectoryRecorder.TRAILER_BYTES - indexOffset));
+        readFully(index, indexOffset);
+        if (index.get() != TrajectoryRecorder.INDEX) {
+            throw new IOException("malformed keyframe index");
+        }
+        int amount = (int) getVarLong(index);
+        long[][] keyframes = new long[2][amount];
+        for (int k = 0; k < amount; k++) {
+            keyframes[0][k] = getVarLong(index);
+            keyframes[1][k] = getVarLong(index);
+        }
+        return keyframes;
+    }
+
+    /**
+     * Returns the tick of the current state, 0 for the first keyframe.
+     *
+     * @return the current tick
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns true if the current state was read from a keyframe.
+     *
+     * @return true for a keyframe
+     */
+    public boolean isKeyframe() {
+        return keyframe;
+    }
+
+    /**
+     * Returns the step the positions were quantized to.
+     *
+     * @return the quantum
+     */
+    public double getQuantum() {
+        return quantum;
+    }
+
+    /**
+     * Returns the amount of frames of the current state.
+     *
+     * @return the amount of frames
+     */
+    public int getFrameAmount() {
+        return qx.length;
+    }
+
+    /**
+     * Returns the amount of balls of a frame in the current state.
+     *
+     * @param frame the index of the frame
+     * @return the amount of balls of the frame
+     */
+    public int getBallAmount(int frame) {
+        return qx[frame].length;
+    }
+
+    /**
+     * Returns the x coordinate of the center of a ball in the current state.
+     *
+     * @param frame the index of the frame
+     * @param ball  the index of the ball in the frame
+     * @return the x coordinate of the center
+     */
+    public double getX(int frame, int ball) {
+        return qx[frame][ball] * quantum;
+    }
+
+    /**
+     * Returns the y coordinate of the center of a ball in the current state.
+     *
+     * @param frame the index of the frame
+     * @param ball  the index of the ball in the frame
+     * @return the y coordinate of the center
+     */
+    public double getY(int frame, int ball) {
+        return qy[frame][ball] * quantum;
+    }
+
+    /**
+     * Returns the dx of the velocity of a ball in the current state.
+     *
+     * @param frame the index of the frame
+     * @param ball  the index of the ball in the frame
+     * @return the dx of the ball
+     */
+    public double getDx(int frame, int ball) {
+        return dx[frame][ball];
+    }
+
+    /**
+     * Returns the dy of the velocity of a ball in the current state.
+     *
+     * @param frame the index of the frame
+     * @param ball  the index of the ball in the frame
+     * @return the dy of the ball
+     */
+    public double getDy(int frame, int ball) {
+        return dy[frame][ball];
+    }
+
+    /**
+     * Returns the radius of a ball, as recorded in the last keyframe.
+     *
+     * @param frame the index of the frame
+     * @param ball  the index of the ball in the frame
+     * @return the radius of the ball
+     */
+    public int getRadius(int frame, int ball) {
+        return radius[frame][ball];
+    }
+
+    /**
+     * Returns the color of a ball as an RGB value, as recorded in the last keyframe.
+     *
+     * @param frame the index of the frame
+     * @param ball  the index of the ball in the frame
+     * @return the RGB value of the color, 0 for a ball without a color
+     */
+    public int getRgb(int frame, int ball) {
+        return rgb[frame][ball];
+    }
+
+    /**
+     * Returns a new screen with the frames and the balls of the current state.
+     *
+     * @return the screen
+     */
+    public Screen toScreen() {
+        Frame[] frames = new Frame[qx.length];
+        for (int f = 0; f < frames.length; f++) {
+            BallStore store = new BallStore(qx[f].length);
+            for (int i = 0; i < qx[f].length; i++) {
+                store.add(getX(f, i), getY(f, i), dx[f][i], dy[f][i], radius[f][i],
+                        rgb[f][i] == 0 ? null : new Color(rgb[f][i], true));
+            }
+            int[] bounds = frameBounds[f];
+            frames[f] = new Frame(bounds[0], bounds[1], bounds[2], bounds[3], store,
+                    frameRgb[f] == 0 ? null : new Color(frameRgb[f], true));
+        }
+        return new Screen(width, height, name, frames);
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Reads the full state of the frames and their balls
+    private void readKeyframe() throws IOException {
+        keyframe = true;
+        tick = getVarLong();
+        int frameAmount = (int) getVarLong();
+        frameBounds = new int[frameAmount][];
+        frameRgb = new int[frameAmount];
+        qx = new long[frameAmount][];
+        qy = new long[frameAmount][];
+        dx = new double[frameAmount][];
+        dy = new double[frameAmount][];
+        radius = new int[frameAmount][];
+        rgb = new int[frameAmount][];
+        for (int f = 0; f < frameAmount; f++) {
+            frameBounds[f] = new int[] {(int) unzigzag(getVarLong()), (int) unzigzag(getVarLong()),
+                    (int) unzigzag(getVarLong()), (int) unzigzag(getVarLong())};
+            require(Integer.BYTES);
+            frameRgb[f] = buffer.getInt();
+            int amount = (int) getVarLong();
+            qx[f] = new long[amount];
+            qy[f] = new long[amount];
+            dx[f] = new double[amount];
+            dy[f] = new double[amount];
+            radius[f] = new int[amount];
+            rgb[f] = new int[amount];
+            for (int i = 0; i < amount; i++) {
+                qx[f][i] = unzigzag(getVarLong());
+                qy[f][i] = unzigzag(getVarLong());
+                require(2 * Double.BYTES);
+                dx[f][i] = buffer.getDouble();
+                dy[f][i] = buffer.getDouble();
+                radius[f][i] = (int) getVarLong();
+                require(Integer.BYTES);
+                rgb[f][i] = buffer.getInt();
+            }
+        }
+    }
+
+    // Reads the buffer full from the given offset of the file, without moving the reader
+    private void readFully(ByteBuffer target, long offset) throws IOException {
+        while (target.hasRemaining()) {
+            if (channel.read(target, offset + target.position()) < 0) {
+                throw new EOFException("the trajectory file is truncated");
+            }
+        }
+        target.flip();
+    }
+
+    // Reads a varint from a buffer that holds all of it
+    private static long getVarLong(ByteBuffer source) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            if (!source.hasRemaining()) {
+                throw new EOFException("the trajectory file is truncated");
+            }
+            byte b = source.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    // Reads a varint written by TrajectoryRecorder.putVarLong
+    private long getVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            require(1);
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    // Makes sure the buffer holds the given amount of bytes, the file must not end before them
+    private void require(int bytes) throws IOException {
+        if (!fill(bytes)) {
+            throw new EOFException("the trajectory file is truncated");
+        }
+    }
+
+    // Reads from the file until the buffer holds the given amount of bytes, returns false if the file ends before
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (bytes > buffer.capacity()) {
+            ByteBuffer bigger = ByteBuffer.allocateDirect(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            bigger.put(buffer);
+            bigger.flip();
+            buffer = bigger;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+
+    // The signed value of a zigzag encoded value
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
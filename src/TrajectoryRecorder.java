@@ -0,0 +1,437 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+ * The TrajectoryRecorder class streams the positions and velocities of the balls of a screen to a file, tick after
+ * tick, so their trajectories can be analyzed offline with a TrajectoryReader.
+ * It is added as a StepListener to a ScreenMotionManager and records the state after every step. The positions are
+ * quantized to a fixed step, and every tick only stores how far each ball is from where its velocity would have
+ * taken it, which is almost always 0 or 1 quantum, as a zigzag varint. A velocity is only stored when it changed,
+ * which happens when the ball bounces. A ball that moves straight takes 2 bytes per tick instead of 32.
+ * The state is encoded on the thread of the loop into chunks, and the chunks are written to the file by a
+ * background thread, so the loop doesn't wait for the disk. When all the chunks are waiting for the disk the loop
+ * waits for a chunk to be written, and the wait is counted as a stall.
+ * The file starts with a header and a keyframe that holds the full state of the screen. A new keyframe is written
+ * periodically, so a replay can seek to any tick by decoding from the keyframe before it, and whenever the amount of
+ * frames or balls changes. The radius and the color of the balls and the frames are only recorded in keyframes.
+ * When the recorder is closed it appends an index of the keyframes and a trailer that points to it.
+ */
+public class TrajectoryRecorder implements StepListener, AutoCloseable {
+    // The first bytes of a trajectory file, "BBTR"
+    static final int MAGIC = 0x52544242;
+    static final int VERSION = 1;
+    // The types of the records that follow the header
+    static final int KEYFRAME = 1;
+    static final int TICK = 2;
+    static final int INDEX = 3;
+    // The size of the trailer at the end of the file: the offset of the index, then the magic number
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+    private static final int DEFAULT_KEYFRAME_INTERVAL = 1000;
+    private static final double DEFAULT_QUANTUM = 1.0 / 256;
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final int CHUNKS = 8;
+    private static final int MAX_NAME_BYTES = 1024;
+    // The most bytes a ball takes in a tick and in a keyframe, and a frame header in a keyframe
+    private static final int MAX_TICK_BALL_BYTES = 2 * (Long.BYTES + 2 + Double.BYTES);
+    private static final int MAX_KEYFRAME_BALL_BYTES = 2 * (Long.BYTES + 2) + 2 * Double.BYTES + 5 + Integer.BYTES;
+    private static final int MAX_FRAME_HEADER_BYTES = 4 * 5 + Integer.BYTES + 5;
+    // Writes doubles into a byte array in the order of the chunks
+    private static final VarHandle DOUBLE_VIEW = MethodHandles.byteArrayViewVarHandle(double[].class,
+            ByteOrder.LITTLE_ENDIAN);
+    // Tells the writer thread that the recording is over
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    private FileChannel channel;
+    private double scale;
+    private long tick;
+    private long keyframeInterval = DEFAULT_KEYFRAME_INTERVAL;
+    // The ticks of the keyframes and their offsets in the file
+    private long[] keyframeTicks = new long[16];
+    private long[] keyframeOffsets = new long[16];
+    private int keyframes;
+    // The amount of bytes handed to the writer thread before the current chunk
+    private long flushedBytes;
+    // The quantized positions and the velocities of the balls, as the reader rebuilds them
+    private long[][] qx = new long[0][];
+    private long[][] qy = new long[0][];
+    private double[][] dx = new double[0][];
+    private double[][] dy = new double[0][];
+    private ByteBuffer chunk;
+    private BlockingQueue<ByteBuffer> filledChunks = new ArrayBlockingQueue<>(CHUNKS + 1);
+    private BlockingQueue<ByteBuffer> freeChunks = new ArrayBlockingQueue<>(CHUNKS);
+    private Thread writer;
+    private AtomicLong bytesWritten = new AtomicLong();
+    private long stalls;
+    private volatile IOException writeError;
+    private boolean closed;
+
+    /**
+     * Constructor for the TrajectoryRecorder class. Creates the file (an existing file is replaced), and records
+     * the current state of the screen as the first keyframe.
+     *
+     * @param screen  the screen whose balls are recorded
+     * @param path    the path of the file
+     * @param quantum the step the positions are quantized to, a power of two keeps the quantization exact
+     * @throws IOException if the file can't be created
+     */
+    public TrajectoryRecorder(Screen screen, Path path, double quantum) throws IOException {
+        if (!(quantum > 0)) {
+            throw new IllegalArgumentException("the quantum must be positive");
+        }
+        this.scale = 1 / quantum;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        for (int i = 0; i < CHUNKS; i++) {
+            freeChunks.add(ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        chunk = freeChunks.poll();
+        writer = new Thread(this::writeChunks, "TrajectoryRecorder-writer");
+        writer.setDaemon(true);
+        writer.start();
+        byte[] name = screen.getName().getBytes(StandardCharsets.UTF_8);
+        // a long name is cut, it is only a label
+        int nameLength = Math.min(name.length, MAX_NAME_BYTES);
+        chunk.putInt(MAGIC).putInt(VERSION).putDouble(quantum).putInt(screen.getRightBound())
+                .putInt(screen.getLowerBound());
+        putVarLong(chunk, nameLength);
+        chunk.put(name, 0, nameLength);
+        writeKeyframe(screen.getFrames());
+    }
+
+    /**
+     * Constructor for the TrajectoryRecorder class, quantizing the positions to 1/256 of a pixel.
+     *
+     * @param screen the screen whose balls are recorded
+     * @param path   the path of the file
+     * @throws IOException if the file can't be created
+     */
+    public TrajectoryRecorder(Screen screen, Path path) throws IOException {
+        this(screen, path, DEFAULT_QUANTUM);
+    }
+
+    /**
+     * Records the state of the balls after a step. Nothing is recorded once the recorder is closed or the writer
+     * failed.
+     *
+     * @param screen the screen whose balls moved
+     */
+    @Override
+    public void stepped(Screen screen) {
+        if (closed || writeError != null) {
+            return;
+        }
+        tick++;
+        Frame[] frames = screen.getFrames();
+        if (tick % keyframeInterval == 0 || structureChanged(frames)) {
+            writeKeyframe(frames);
+            return;
+        }
+        ensure(1);
+        chunk.put((byte) TICK);
+        // the balls are encoded straight into the array of the chunk, which is much faster than the buffer methods
+        byte[] bytes = chunk.array();
+        int position = chunk.position();
+        int limit = chunk.limit() - MAX_TICK_BALL_BYTES;
+        for (int f = 0; f < frames.length; f++) {
+            BallStore store = frames[f].getBallStore();
+            long[] frameQx = qx[f];
+            long[] frameQy = qy[f];
+            double[] frameDx = dx[f];
+            double[] frameDy = dy[f];
+            for (int i = 0; i < frameQx.length; i++) {
+                if (position > limit) {
+                    chunk.position(position);
+                    flush();
+                    bytes = chunk.array();
+                    position = chunk.position();
+                }
+                double ballDx = store.getDx(i);
+                double ballDy = store.getDy(i);
+                position = putCoordinate(bytes, position, frameQx, i, store.getX(i), ballDx, ballDx != frameDx[i]);
+                position = putCoordinate(bytes, position, frameQy, i, store.getY(i), ballDy, ballDy != frameDy[i]);
+                frameDx[i] = ballDx;
+                frameDy[i] = ballDy;
+            }
+        }
+        chunk.position(position);
+    }
+
+    /**
+     * Sets the amount of ticks between two periodic keyframes. Seeking decodes at most that many ticks, and every
+     * keyframe costs about as much as 15 ticks.
+     *
+     * @param keyframeInterval the amount of ticks between two keyframes
+     */
+    public void setKeyframeInterval(long keyframeInterval) {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("the keyframe interval must be positive");
+        }
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Returns the amount of ticks between two periodic keyframes.
+     *
+     * @return the keyframe interval
+     */
+    public long getKeyframeInterval() {
+        return keyframeInterval;
+    }
+
+    /**
+     * Returns the amount of ticks recorded after the first keyframe.
+     *
+     * @return the amount of recorded ticks
+     */
+    public long getTicks() {
+        return tick;
+    }
+
+    /**
+     * Returns the amount of bytes the writer thread wrote to the file so far.
+     *
+     * @return the amount of written bytes
+     */
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    /**
+     * Returns the amount of times the loop waited for the writer thread because all the chunks were full.
+     *
+     * @return the amount of stalls
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Writes what is left to the file, stops the writer thread and closes the file.
+     *
+     * @throws IOException if writing to the file failed at any point of the recording
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writeIndex();
+        boolean interrupted = false;
+        try {
+            chunk.flip();
+            filledChunks.put(chunk);
+            filledChunks.put(END);
+            writer.join();
+        } catch (InterruptedException interruptedError) {
+            interrupted = true;
+            writer.interrupt();
+        } finally {
+            channel.close();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while closing the recording");
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    // Writes the quantized coordinate of a ball as its distance from where the velocity would have taken the
+    // previous one, shifted left with the lowest bit telling if the velocity changed, followed by the new velocity if
+    // it did. Keeps the quantized coordinate, and returns the position after the written bytes
+    private int putCoordinate(byte[] bytes, int position, long[] quantized, int i, double value, double velocity,
+                              boolean velocityChanged) {
+        long current = quantize(value * scale);
+        long residual = current - (quantized[i] + quantize(velocity * scale));
+        quantized[i] = current;
+        long code = (zigzag(residual) << 1) | (velocityChanged ? 1 : 0);
+        while ((code & ~0x7FL) != 0) {
+            bytes[position++] = (byte) ((code & 0x7F) | 0x80);
+            code >>>= 7;
+        }
+        bytes[position++] = (byte) code;
+        if (velocityChanged) {
+            DOUBLE_VIEW.set(bytes, position, velocity);
+            position += Double.BYTES;
+        }
+        return position;
+    }
+
+    // Returns true if the amount of frames or the amount of balls in a frame changed since the last keyframe
+    private boolean structureChanged(Frame[] frames) {
+        if (frames.length != qx.length) {
+            return true;
+        }
+        for (int f = 0; f < frames.length; f++) {
+            if (frames[f].getBallStore().size() != qx[f].length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Writes the ticks and the offsets of the keyframes, then the trailer that points to them
+    private void writeIndex() {
+        ensure(1 + Long.BYTES + 2);
+        long indexOffset = flushedBytes + chunk.position();
+        chunk.put((byte) INDEX);
+        putVarLong(chunk, keyframes);
+        for (int k = 0; k < keyframes; k++) {
+            ensure(2 * (Long.BYTES + 2));
+            putVarLong(chunk, keyframeTicks[k]);
+            putVarLong(chunk, keyframeOffsets[k]);
+        }
+        ensure(TRAILER_BYTES);
+        chunk.putLong(indexOffset).putInt(MAGIC);
+    }
+
+    // Writes the full state of the frames and their balls, and starts the deltas from it
+    private void writeKeyframe(Frame[] frames) {
+        ensure(1 + 2 * (Long.BYTES + 2));
+        if (keyframes == keyframeTicks.length) {
+            keyframeTicks = Arrays.copyOf(keyframeTicks, keyframes * 2);
+            keyframeOffsets = Arrays.copyOf(keyframeOffsets, keyframes * 2);
+        }
+        keyframeTicks[keyframes] = tick;
+        keyframeOffsets[keyframes] = flushedBytes + chunk.position();
+        keyframes++;
+        chunk.put((byte) KEYFRAME);
+        putVarLong(chunk, tick);
+        putVarLong(chunk, frames.length);
+        qx = new long[frames.length][];
+        qy = new long[frames.length][];
+        dx = new double[frames.length][];
+        dy = new double[frames.length][];
+        for (int f = 0; f < frames.length; f++) {
+            Frame frame = frames[f];
+            BallStore store = frame.getBallStore();
+            int amount = store.size();
+            ensure(MAX_FRAME_HEADER_BYTES);
+            putVarLong(chunk, zigzag(frame.getLeftBound()));
+            putVarLong(chunk, zigzag(frame.getRightBound()));
+            putVarLong(chunk, zigzag(frame.getUpperBound()));
+            putVarLong(chunk, zigzag(frame.getLowerBound()));
+            chunk.putInt(frame.getColor() == null ? 0 : frame.getColor().getRGB());
+            putVarLong(chunk, amount);
+            qx[f] = new long[amount];
+            qy[f] = new long[amount];
+            dx[f] = new double[amount];
+            dy[f] = new double[amount];
+            for (int i = 0; i < amount; i++) {
+                ensure(MAX_KEYFRAME_BALL_BYTES);
+                qx[f][i] = quantize(store.getX(i) * scale);
+                qy[f][i] = quantize(store.getY(i) * scale);
+                dx[f][i] = store.getDx(i);
+                dy[f][i] = store.getDy(i);
+                putVarLong(chunk, zigzag(qx[f][i]));
+                putVarLong(chunk, zigzag(qy[f][i]));
+                chunk.putDouble(dx[f][i]).putDouble(dy[f][i]);
+                putVarLong(chunk, store.getRadius(i));
+                chunk.putInt(store.getRgb(i));
+            }
+        }
+    }
+
+    // Makes room for the given amount of bytes in the current chunk
+    private void ensure(int bytes) {
+        if (chunk.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // Hands the current chunk to the writer thread and takes a free one, waiting for one if there is none
+    private void flush() {
+        chunk.flip();
+        flushedBytes += chunk.limit();
+        ByteBuffer next = freeChunks.poll();
+        try {
+            filledChunks.put(chunk);
+            if (next == null) {
+                stalls++;
+                next = freeChunks.take();
+            }
+        } catch (InterruptedException interruptedError) {
+            Thread.currentThread().interrupt();
+            // the recording can't go on without a chunk, it is stopped and reported on close
+            writeError = new IOException("interrupted while waiting for the writer");
+            next = ByteBuffer.allocate(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        chunk = next;
+        chunk.clear();
+    }
+
+    // The loop of the writer thread: writes the filled chunks to the file in order and frees them
+    private void writeChunks() {
+        try {
+            while (true) {
+                ByteBuffer filled = filledChunks.take();
+                if (filled == END) {
+                    return;
+                }
+                if (writeError == null) {
+                    try {
+                        int bytes = filled.remaining();
+                        while (filled.hasRemaining()) {
+                            channel.write(filled);
+                        }
+                        bytesWritten.addAndGet(bytes);
+                    } catch (IOException writeFailure) {
+                        // the chunks that are still handed in are dropped, so the loop never waits for a dead writer
+                        writeError = writeFailure;
+                    }
+                }
+                filled.clear();
+                freeChunks.offer(filled);
+            }
+        } catch (InterruptedException interruptedError) {
+            writeError = new IOException("the writer was interrupted");
+        }
+    }
+
+    /**
+     * Returns the nearest whole number to a value in quanta. The recorder and the reader must round the same way, and
+     * Math.floor is several times faster than Math.round, which isn't an intrinsic.
+     *
+     * @param quanta the value in quanta
+     * @return the nearest whole number, rounding halves up
+     */
+    static long quantize(double quanta) {
+        return (long) Math.floor(quanta + 0.5);
+    }
+
+    /**
+     * Writes a long as a varint: 7 bits per byte from the lowest, with the high bit set on all the bytes but the last.
+     *
+     * @param buffer the buffer to write to
+     * @param value  the value, treated as unsigned
+     */
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Returns the zigzag encoding of a signed value, which maps small negative and positive values to small
+     * unsigned values: 0, -1, 1, -2, 2 become 0, 1, 2, 3, 4.
+     *
+     * @param value the signed value
+     * @return the zigzag encoded value
+     */
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,97 @@
+import java.util.concurrent.atomic.AtomicInteger;
+/**
+ * The TripleBufferedScreen class hands the balls of a screen from the thread that moves them to the thread that
+ * draws them, without locks and without tearing.
+ * It keeps three copies of the screen: the back copy, which the physics thread writes, the front copy, which the
+ * drawing thread reads, and the middle copy between them. The physics thread copies the balls into the back copy
+ * and publishes it by swapping it with the middle copy in a single atomic operation, and the drawing thread takes
+ * the middle copy in the same way when a newer one was published. Every thread only touches the copy it owns, so
+ * the physics never waits for a drawing and a drawing always sees the whole state of a single tick. The ticks
+ * published while the drawing thread was busy are skipped.
+ */
+public class TripleBufferedScreen {
+    // The bit of the middle index that is set when the middle copy was published and wasn't taken yet
+    private static final int FRESH = 4;
+    private static final int INDEX_MASK = 3;
+    private Screen[] copies = new Screen[3];
+    // The tick of the state held by every copy
+    private long[] copyTicks = new long[3];
+    // The index of the middle copy, and the FRESH bit
+    private AtomicInteger middle = new AtomicInteger(1);
+    // The index of the copy written by the physics thread
+    private int back = 0;
+    // The index of the copy read by the drawing thread
+    private int front = 2;
+
+    /**
+     * Constructor for the TripleBufferedScreen class. The three copies start with the current state of the screen.
+     *
+     * @param screen the screen whose balls are handed over
+     */
+    public TripleBufferedScreen(Screen screen) {
+        Frame[] frames = screen.getFrames();
+        for (int c = 0; c < copies.length; c++) {
+            Frame[] copyFrames = new Frame[frames.length];
+            for (int f = 0; f < frames.length; f++) {
+                BallStore store = new BallStore(frames[f].getBallStore().size());
+                store.copyFrom(frames[f].getBallStore());
+                copyFrames[f] = new Frame(frames[f].getLeftBound(), frames[f].getRightBound(),
+                        frames[f].getUpperBound(), frames[f].getLowerBound(), store, frames[f].getColor());
+            }
+            copies[c] = new Screen(screen.getRightBound(), screen.getLowerBound(), screen.getName(), copyFrames);
+        }
+    }
+
+    /**
+     * Copies the balls of the screen into the back copy and publishes it to the drawing thread. It is called by the
+     * physics thread only.
+     *
+     * @param screen the screen the copies were made of
+     * @param tick   the tick of the state of the screen
+     */
+    public void publish(Screen screen, long tick) {
+        Frame[] frames = screen.getFrames();
+        Frame[] copyFrames = copies[back].getFrames();
+        if (frames.length != copyFrames.length) {
+            throw new IllegalArgumentException("the screen has " + frames.length + " frames instead of "
+                    + copyFrames.length);
+        }
+        for (int f = 0; f < frames.length; f++) {
+            copyFrames[f].getBallStore().copyFrom(frames[f].getBallStore());
+        }
+        copyTicks[back] = tick;
+        back = middle.getAndSet(back | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Takes the last published copy as the front copy, if a copy was published since the last call. It is called by
+     * the drawing thread only.
+     *
+     * @return true if the front copy changed
+     */
+    public boolean acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Returns the front copy of the screen, which the drawing thread owns until its next acquire.
+     *
+     * @return the front copy
+     */
+    public Screen getFront() {
+        return copies[front];
+    }
+
+    /**
+     * Returns the tick of the state held by the front copy.
+     *
+     * @return the tick of the front copy
+     */
+    public long getFrontTick() {
+        return copyTicks[front];
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.Arrays;
+/**
+ * The UniformGrid class is a spatial index that buckets the balls of a frame into square cells.
+ * The cells are at least as wide as the biggest ball, so two balls can only touch if they are in the same
+ * cell or in neighbouring cells. The grid is rebuilt from scratch with a counting sort, which takes linear time
+ * and reuses its arrays between rebuilds.
+ */
+public class UniformGrid {
+    private double originX;
+    private double originY;
+    private double cellSize = 1;
+    private int columns;
+    private int rows;
+    // The balls of cell c are cellBalls[cellStart[c]] .. cellBalls[cellStart[c + 1] - 1]
+    private int[] cellStart = new int[1];
+    private int[] cellBalls = new int[0];
+    // The cell of each ball
+    private int[] ballCell = new int[0];
+
+    /**
+     * Rebuilds the grid over the balls of the given frame. The size of a cell is the diameter of the biggest ball.
+     *
+     * @param frame the frame whose balls are indexed
+     */
+    public void rebuild(Frame frame) {
+        BallStore store = frame.getBallStore();
+        int size = store.size();
+        int maxRadius = 1;
+        for (int i = 0; i < size; i++) {
+            maxRadius = Math.max(maxRadius, store.getRadius(i));
+        }
+        originX = frame.getLeftBound();
+        originY = frame.getUpperBound();
+        cellSize = 2.0 * maxRadius;
+        columns = Math.max(1, (int) Math.ceil(frame.getWidth() / cellSize));
+        rows = Math.max(1, (int) Math.ceil(frame.getHeight() / cellSize));
+        int cells = columns * rows;
+        if (cellStart.length < cells + 1) {
+            cellStart = new int[cells + 1];
+        } else {
+            Arrays.fill(cellStart, 0, cells + 1, 0);
+        }
+        if (ballCell.length < size) {
+            ballCell = new int[size];
+            cellBalls = new int[size];
+        }
+        // count the balls of each cell, then turn the counts into the ends of the cells
+        for (int i = 0; i < size; i++) {
+            int cell = cellOf(store.getX(i), store.getY(i));
+            ballCell[i] = cell;
+            cellStart[cell + 1]++;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        // place the balls backwards from the end of their cell, which leaves the start of cell c in cellStart[c + 1]
+        for (int i = size - 1; i >= 0; i--) {
+            cellBalls[--cellStart[ballCell[i] + 1]] = i;
+        }
+        for (int c = 0; c < cells; c++) {
+            cellStart[c] = cellStart[c + 1];
+        }
+        cellStart[cells] = size;
+    }
+
+    /**
+     * Returns the cell of the given point. Points outside the frame belong to the nearest edge cell.
+     *
+     * @param x the x coordinate of the point
+     * @param y the y coordinate of the point
+     * @return the index of the cell
+     */
+    public int cellOf(double x, double y) {
+        return row(y) * columns + column(x);
+    }
+
+    /**
+     * Returns the column of the cell of the given x coordinate.
+     *
+     * @param x the x coordinate
+     * @return the column of the cell
+     */
+    public int column(double x) {
+        int column = (int) ((x - originX) / cellSize);
+        return Math.min(Math.max(column, 0), columns - 1);
+    }
+
+    /**
+     * Returns the row of the cell of the given y coordinate.
+     *
+     * @param y the y coordinate
+     * @return the row of the cell
+     */
+    public int row(double y) {
+        int row = (int) ((y - originY) / cellSize);
+        return Math.min(Math.max(row, 0), rows - 1);
+    }
+
+    /**
+     * Returns the amount of columns of the grid.
+     *
+     * @return the amount of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns the amount of rows of the grid.
+     *
+     * @return the amount of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the position in the cell balls of the first ball of the given cell.
+     *
+     * @param cell the index of the cell
+     * @return the position of the first ball of the cell
+     */
+    public int getCellStart(int cell) {
+        return cellStart[cell];
+    }
+
+    /**
+     * Returns the position in the cell balls after the last ball of the given cell.
+     *
+     * @param cell the index of the cell
+     * @return the position after the last ball of the cell
+     */
+    public int getCellEnd(int cell) {
+        return cellStart[cell + 1];
+    }
+
+    /**
+     * Returns the index of the ball at the given position of the cell balls.
+     *
+     * @param position the position in the cell balls
+     * @return the index of the ball in the store
+     */
+    public int getBall(int position) {
+        return cellBalls[position];
+    }
+
+    /**
+     * Returns the cell of the ball at the given index, as it was when the grid was rebuilt.
+     *
+     * @param index the index of the ball in the store
+     * @return the index of the cell of the ball
+     */
+    public int getBallCell(int index) {
+        return ballCell[index];
+    }
+}
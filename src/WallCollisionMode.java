@@ -0,0 +1,12 @@
+/**
+ * The WallCollisionMode enum determines how ScreenMotionManager finds the point where a ball meets a frame wall.
+ */
+public enum WallCollisionMode {
+    // Computes the point of impact with plain arithmetic, without creating any object
+    ANALYTIC,
+    // Computes the point of impact by intersecting the path of the ball with the wall as Line objects
+    LINE_REFERENCE,
+    // Sweeps the ball along its whole step and reflects it off every wall it reaches, in the order of the impacts,
+    // so a fast ball can bounce a few times in one step without losing the rest of its travel
+    CONTINUOUS
+}